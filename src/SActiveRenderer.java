@@ -0,0 +1,209 @@
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Graphics;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Draws the game itself, on its own thread, instead of asking Swing to
+ * repaint it. Swing's repaint() only asks for a repaint sometime later,
+ * and the RepaintManager can put it off behind input events or merge it
+ * with other repaints, so frames do not come at a steady rate. This draws
+ * into the back buffer of a Canvas's BufferStrategy and flips it onto the
+ * screen, as soon as the game has a new frame ready, but never more often
+ * than the target frame rate.
+ *
+ * The game and this thread share the drawing state (where the character
+ * is, which map is showing, and so on). The game changes it only while
+ * holding the lock given to the constructor, and calls frameReady() once
+ * a frame's state is complete. This thread holds the same lock while it
+ * draws, so every frame it draws is a whole frame, between two ticks.
+ *
+ * A frame is dropped when the game has a new frame ready before this
+ * thread got to the last one (only the newest frame is drawn), or when
+ * the buffers were lost while it was being drawn.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SActiveRenderer implements Runnable {
+	private Canvas canvas; //what the frames are shown on
+	private Painter painter; //what draws each frame
+	private Object lock; //held by the game while it changes the drawing state, and by this thread while it draws
+	private long frameNanos; //the shortest time between two frames, in nanoseconds
+	private volatile BufferStrategy strategy; //the canvas's buffers. null until createBuffers() is called
+	private Thread thread; //the render thread
+	private volatile boolean running; //should the render thread keep going?
+	private boolean frameWaiting; //has the game got a frame ready that has not been drawn yet? guarded by this
+	private long framesDrawn; //how many frames have been shown. guarded by this
+	private long framesDropped; //how many frames were never shown. guarded by this
+
+	/**
+	 * Something that draws a whole frame.
+	 */
+	public interface Painter {
+		/**
+		 * Draw a frame.
+		 * @param g the graphics of the back buffer to draw it with
+		 */
+		void paint(Graphics g);
+	}
+
+	/**
+	 * Create a renderer. It does not draw anything until createBuffers() and
+	 * start() have been called.
+	 * @param canvas what to show the frames on
+	 * @param painter what draws each frame
+	 * @param lock held by the game whenever it changes what painter draws
+	 * @param targetFps the most frames per second to draw
+	 */
+	public SActiveRenderer(Canvas canvas, Painter painter, Object lock, int targetFps){
+		this.canvas = canvas;
+		this.painter = painter;
+		this.lock = lock;
+		frameNanos = 1000000000L / Math.max(1, targetFps);
+		canvas.setIgnoreRepaint(true); //every frame is drawn by this, so Swing should not paint the canvas itself
+	}
+
+	/**
+	 * (Re)create the canvas's buffers, with page flipping if the system
+	 * supports it, or copying from the back buffer if it does not. This has
+	 * to be called once the canvas is showing, and again whenever it
+	 * changes size. The caller must hold the lock.
+	 */
+	public void createBuffers(){
+		try {
+			canvas.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+		} catch (AWTException awte){
+			canvas.createBufferStrategy(2); //no page flipping, so use whatever the system has
+		}
+		strategy = canvas.getBufferStrategy();
+	}
+
+	/**
+	 * Start the render thread.
+	 */
+	public void start(){
+		if (running){
+			return;
+		}
+		running = true;
+		thread = new Thread(this, "render");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop the render thread after the frame it is on.
+	 */
+	public void stop(){
+		running = false;
+		if (thread != null){
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * Tell the render thread that the game has a new frame ready. Called
+	 * by the game after it has finished changing the drawing state.
+	 */
+	public synchronized void frameReady(){
+		if (frameWaiting){
+			framesDropped++; //the last frame was never drawn, and now it never will be
+		}
+		frameWaiting = true;
+		notifyAll();
+	}
+
+	/**
+	 * The render thread: wait for a frame, wait until it is time to draw
+	 * another frame, then draw it and flip it onto the screen.
+	 */
+	@Override
+	public void run(){
+		long nextFrame = System.nanoTime();
+		try {
+			while (running){
+				synchronized (this){
+					while (!frameWaiting){
+						wait();
+					}
+				}
+				long sleepNanos = nextFrame - System.nanoTime();
+				if (sleepNanos > 0){
+					Thread.sleep(sleepNanos / 1000000L, (int) (sleepNanos % 1000000L));
+				}
+				nextFrame = Math.max(nextFrame + frameNanos, System.nanoTime());
+				synchronized (this){
+					frameWaiting = false;
+				}
+				boolean shown = drawFrame();
+				synchronized (this){
+					if (shown){
+						framesDrawn++;
+					} else {
+						framesDropped++;
+					}
+				}
+			}
+		} catch (InterruptedException ie){
+			//stopped
+		}
+	}
+
+	/**
+	 * Draw one frame into the back buffer and show it.
+	 * @return true if the frame was shown, false if there were no buffers to show it with
+	 */
+	private boolean drawFrame(){
+		synchronized (lock){
+			BufferStrategy buffers = strategy;
+			if (buffers == null){
+				return false;
+			}
+			try {
+				do {
+					do {
+						Graphics g = buffers.getDrawGraphics();
+						try {
+							painter.paint(g);
+						} finally {
+							g.dispose();
+						}
+					} while (buffers.contentsRestored()); //the buffer was lost and restored while drawing, so it has to be drawn again
+					buffers.show();
+				} while (buffers.contentsLost());
+			} catch (IllegalStateException ise){
+				return false; //the canvas has gone away
+			}
+		}
+		Toolkit.getDefaultToolkit().sync(); //some systems hold drawing back until they are told to show it
+		return true;
+	}
+
+	/**
+	 * Return how many frames have been shown.
+	 * @return long: the number of frames shown
+	 */
+	public synchronized long getFramesDrawn(){
+		return framesDrawn;
+	}
+
+	/**
+	 * Return how many frames were never shown.
+	 * @return long: the number of frames dropped
+	 */
+	public synchronized long getFramesDropped(){
+		return framesDropped;
+	}
+
+	/**
+	 * @return a summary of how the renderer has been doing, for debugging
+	 */
+	@Override
+	public synchronized String toString(){
+		return "active rendering: " + framesDrawn + " frames drawn, " + framesDropped + " dropped, at most " + (1000000000L / frameNanos) + " per second";
+	}
+}
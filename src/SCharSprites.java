@@ -0,0 +1,130 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pictures of the character, one for each step of the walking animation,
+ * drawn once and then copied onto the screen every frame. The character
+ * is made of four letters (a head, a body, arms and legs), and drawing
+ * letters means laying out and rasterizing each glyph of the font every
+ * time, which is much slower than copying a small picture.
+ *
+ * Each step's picture is drawn from STEP_GLYPHS, which says what the body
+ * and the arms look like on that step. There are two steps now (SChar's
+ * stepMax is 1). For a longer walking animation, add a row to STEP_GLYPHS
+ * for each new step. Steps past the last row start over from the first.
+ *
+ * Pictures are made for each font and color the first time they are asked
+ * for, and shared after that, between the game and the map maker's
+ * character previews.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SCharSprites {
+	/*
+	 * the body and the arms on each step of the walking animation. the head
+	 * ("o") and the legs ("O") are the same on every step.
+	 */
+	private static final String[][] STEP_GLYPHS = {
+			{"H", "- -"},
+			{"X", "~ ~"}
+	};
+	private static final ConcurrentHashMap<List<Object>, SCharSprites> CACHE = new ConcurrentHashMap<List<Object>, SCharSprites>(); //every set of pictures that has been made, by font and color
+	private BufferedImage[] steps; //the picture of each step, with a transparent background
+	private int originX; //how far right of the left side of each picture the character's x position is
+	private int originY; //how far down from the top of each picture the character's y position is
+
+	/**
+	 * Return the pictures of the character in a font and color, making
+	 * them if they have not been made yet.
+	 * @param font the font to draw the letters in
+	 * @param color the color to draw the character in
+	 * @return SCharSprites: the pictures
+	 */
+	public static SCharSprites get(Font font, Color color){
+		List<Object> key = Arrays.asList(font, color.getRGB());
+		SCharSprites sprites = CACHE.get(key);
+		if (sprites == null){
+			sprites = CACHE.computeIfAbsent(key, k -> new SCharSprites(font, color));
+		}
+		return sprites;
+	}
+
+	/**
+	 * Draw the pictures. The letters are placed exactly where they used to
+	 * be drawn each frame, relative to the character's position.
+	 */
+	private SCharSprites(Font font, Color color){
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics measure = scratch.getGraphics();
+		FontMetrics metrics = measure.getFontMetrics(font);
+		measure.dispose();
+		Rectangle bounds = glyphBounds(metrics);
+		originX = -bounds.x;
+		originY = -bounds.y;
+		steps = new BufferedImage[STEP_GLYPHS.length];
+		for (int step = 0; step < steps.length; step++){
+			BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+			Graphics g = image.getGraphics();
+			g.setFont(font);
+			g.setColor(color);
+			g.drawString(STEP_GLYPHS[step][0], originX, originY);
+			g.drawString(STEP_GLYPHS[step][1], originX - 5, originY - 6);
+			g.drawString("O", originX, originY - 5);
+			g.drawString("o", originX + 2, originY - 15);
+			g.dispose();
+			steps[step] = image;
+		}
+	}
+
+	/**
+	 * Work out the area that the letters of every step cover, relative to
+	 * the character's position.
+	 */
+	private static Rectangle glyphBounds(FontMetrics metrics){
+		int left = -5;
+		int right = Math.max(metrics.stringWidth("O"), 2 + metrics.stringWidth("o"));
+		for (String[] glyphs : STEP_GLYPHS){
+			right = Math.max(right, Math.max(metrics.stringWidth(glyphs[0]), -5 + metrics.stringWidth(glyphs[1])));
+		}
+		int top = -15 - metrics.getAscent();
+		int bottom = metrics.getDescent();
+		return new Rectangle(left, top, right - left, bottom - top);
+	}
+
+	/**
+	 * Draw the character.
+	 * @param g the graphics to draw with
+	 * @param step which step of the walking animation the character is on
+	 * @param x the character's x position
+	 * @param y the character's y position
+	 */
+	public void draw(Graphics g, int step, int x, int y){
+		g.drawImage(steps[Math.floorMod(step, steps.length)], x - originX, y - originY, null);
+	}
+
+	/**
+	 * Return the area the character covers, on any step.
+	 * @param x the character's x position
+	 * @param y the character's y position
+	 * @return Rectangle: the area covered by the pictures
+	 */
+	public Rectangle getBounds(int x, int y){
+		return new Rectangle(x - originX, y - originY, steps[0].getWidth(), steps[0].getHeight());
+	}
+
+	/**
+	 * Return how many steps there are pictures for.
+	 * @return int: the number of steps
+	 */
+	public int getStepCount(){
+		return steps.length;
+	}
+}
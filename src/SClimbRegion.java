@@ -0,0 +1,72 @@
+/**
+ * The result of checking a rectangle of a map for climbable shapes with
+ * SMap.getClimbRegion(): which kinds of climbability overlap the rectangle,
+ * as a bitmask, and the highest in-map-warp value that overlaps it.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SClimbRegion {
+	public static final int LADDER = 1; //bit for climbability 1, climbable like a ladder
+	public static final int WATER = 2; //bit for climbability 2, watery
+	public static final int JUMPABLE = 4; //bit for climbability 3, jumpable climb
+	/*
+	 * the climbability that wins for each combination of bits: jump climbable,
+	 * then ladder climbable, then water, then can't climb.
+	 */
+	private static final int[] PRIORITY = {0, 1, 2, 1, 3, 3, 3, 3};
+	private int kinds; //the bits of every kind of climbability in the rectangle
+	private int warp; //the highest in-map-warp value (warp number + 10) in the rectangle, or 0 if there are none
+
+	/**
+	 * Create a climb region result.
+	 * @param kinds the LADDER, WATER and JUMPABLE bits of the climbability in the rectangle
+	 * @param warp the highest in-map-warp value in the rectangle, or 0 if there are none
+	 */
+	public SClimbRegion(int kinds, int warp){
+		this.kinds = kinds;
+		this.warp = warp;
+	}
+
+	/**
+	 * Return the bit for a climbability value.
+	 * @param climb a climbability value from a map file, 1, 2 or 3
+	 * @return int: LADDER, WATER or JUMPABLE, or 0 for any other value
+	 */
+	public static int kindBit(int climb){
+		if (climb >= 1 && climb <= 3){
+			return 1 << (climb - 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * Return the bits of every kind of climbability in the rectangle.
+	 * @return int: some combination of LADDER, WATER and JUMPABLE
+	 */
+	public int getKinds(){
+		return kinds;
+	}
+
+	/**
+	 * Return the highest in-map-warp value in the rectangle.
+	 * @return int: the warp number + 10, or 0 if there are no warps in the rectangle
+	 */
+	public int getWarp(){
+		return warp;
+	}
+
+	/**
+	 * Return the one climbability value that takes priority in the rectangle,
+	 * the same kind of value as SMap.getClimb() returns. in-map-warp takes
+	 * first priority, then jump climbable, then ladder climbable, then water,
+	 * then cantclimb.
+	 * @return int: the warp value, or 3, 1, 2 or 0
+	 */
+	public int getPriority(){
+		if (warp != 0){
+			return warp;
+		}
+		return PRIORITY[kinds];
+	}
+}
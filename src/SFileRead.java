@@ -1,7 +1,15 @@
 import java.awt.Dimension;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 /**
  * 
  * Reads all necessary information from a map file, including the spawn position, 
@@ -12,6 +20,11 @@ import java.util.Scanner;
  *
  */
 public class SFileRead {
+	public static final String BINARY_EXTENSION = ".lmap"; //the file extension of compiled binary map files
+	public static final int BINARY_MAGIC = 0x4C4D4150; //the first int of every compiled map file, "LMAP" in ASCII
+	public static final int BINARY_VERSION = 1; //the version of the compiled map format. files with any other version are ignored
+	public static final int BINARY_HEADER_INTS = 12; //how many ints come before the shape data in a compiled map file, including the magic number and version
+	public static final int BINARY_NO_MAP = -1; //stored in compiled map files where a text map file would have 'n'
 	private int map; //the map number
 	private int spawnX; //the x value of the spawn point, as read from the file
 	private int spawnY; //the x value of the spawn point, as read from the file
@@ -31,6 +44,10 @@ public class SFileRead {
 	private int frameWidth; //the width of the frame
 	private int frameHeight; //the height of the frame
 	private String fileName; //the name of the file to read from
+	private String binaryFileName; //the name of the compiled binary version of the file
+	private byte[] fileBytes; //the whole contents of the map file, while it is being read
+	private int filePosition; //the position within fileBytes of the next value to read
+	private boolean lastValueWasNone; //was the last map number read from the file an 'n'?
 
 	/**
 	 * reads all of the values from a map file at once. 
@@ -38,160 +55,227 @@ public class SFileRead {
 	 * @param mapNumber the map number to read
 	 */
 	public SFileRead(int mapNumber){
-			map = mapNumber;
-			fileName = "maps/" + map + ".txt";
-			setShapeCount();
-			fillMapArray();
-			getEdgeWarps();
-			getSpawn();
-			gameDimensions();
+			this(mapNumber, true);
 	}
+
 	/**
-	 * read all shapes from the map file and store them in an array, fileRectangleData[shape number][specific data value index].
-	 * this method also checks warp count, and fills the warp array. i put that in here since this method already reads through
-	 * the whole map array. a standalone method for warp data would have to burn through all the other shapes with a for loop
-	 * anyway, might as well only have to do that once.
+	 * reads all of the values from a map file at once. 
+	 * if useCompiledMap is true and the map has been compiled to the binary 
+	 * format (see SMapCompiler) since its text file was last saved, the
+	 * binary file is read instead of the text file.
+	 * @param mapNumber the map number to read
+	 * @param useCompiledMap should the compiled binary map file be used, if there is an up to date one?
 	 */
-	public void fillMapArray(){
-		fileShapeData = new int[shapeCount][9];
-		Scanner scan1;
-		try {
-			/*
-			 * skip over values that are not needed for the rectangle data array, which only holds shape data
-			 */
-			scan1 = new Scanner(new FileReader(fileName));
-			scan1.nextLine();
-			scan1.nextLine();
-			scan1.nextLine();
-			scan1.nextLine();
-			//fill the rectangle data array
-			for (int i = 0; i < shapeCount; i++){
-				for(int j = 0; j < 9; j++){
-					fileShapeData[i][j] = scan1.nextInt();	
-				}
-			}
-			//fill the warpList
-			warpCount = scan1.nextInt();
-			warpList = new int[warpCount][3];
-			for (int i = 0; i < warpCount; i++){
-				for (int j = 0; j < 3; j++){
-					String value = scan1.next();
-					if(value.equals("n")){
-						warpList[i][j] = map;
-					} else{
-						warpList[i][j] = Integer.parseInt(value);
-						//System.out.println(value);
-					}
-				}
+	public SFileRead(int mapNumber, boolean useCompiledMap){
+			map = mapNumber;
+			fileName = "maps/" + map + ".txt";
+			binaryFileName = "maps/" + map + BINARY_EXTENSION;
+			File binaryFile = new File(binaryFileName);
+			File textFile = new File(fileName);
+			if (useCompiledMap && binaryFile.isFile() && (!textFile.exists() || binaryFile.lastModified() >= textFile.lastModified()) && readBinaryMapFile()){
+				return;
 			}
+			readMapFile();
+	}
 
-		} catch (FileNotFoundException fnfe){
-			System.out.println("Map file not found in SFileRead class fillMapArray() method");
-		}
+	/**
+	 * check whether there is a map file (text or compiled) for a map number.
+	 * @param mapNumber the map number to check
+	 * @return true if the map has a map file
+	 */
+	public static boolean mapExists(int mapNumber){
+		return new File("maps/" + mapNumber + ".txt").isFile() || new File("maps/" + mapNumber + BINARY_EXTENSION).isFile();
 	}
 
 	/**
-	 * read the shape count from the map file.
-	 * @return the shape count
+	 * read the whole map file in one pass: the game dimensions, the spawn point, 
+	 * the edge warps, the shape count, all of the shapes, and the in-map-warps.
+	 * the file is opened once and read into memory, then its values are read
+	 * off one at a time in the order they appear in the file.
+	 * 
+	 * edge warps and in-map-warps can be 'n' instead of a number.
+	 * 'n' means that there is no edge warp in that direction, so the player 
+	 * should just warp to the opposite side of the current map, or that an 
+	 * in-map-warp leads somewhere else on the current map. either way, it is 
+	 * stored as the current map number.
+	 * 
+	 * anything after the in-map-warps (like the notes about the file format 
+	 * that the map maker writes at the bottom of the file) is ignored.
+	 * 
+	 * if the file cannot be read, the map is left with no shapes and no 
+	 * in-map-warps.
 	 */
-	public void setShapeCount(){
+	public void readMapFile(){
 		shapeCount = 0;
-		Scanner scan1;
-		try {
-			scan1 = new Scanner(new FileReader(fileName));
-			scan1.nextLine();
-			scan1.nextLine();
-			scan1.nextLine();
-			shapeCount = scan1.nextInt();
-		} catch (FileNotFoundException fnfe) {
-			System.out.println("map file not found in SFileRead class rectangleCount() method");
+		fileShapeData = new int[0][9];
+		warpCount = 0;
+		warpList = new int[0][3];
+		try (FileInputStream in = new FileInputStream(fileName)){
+			fileBytes = in.readAllBytes();
+		} catch (FileNotFoundException fnfe){
+			System.out.println("no map file found in SFileRead class readMapFile() method");
+			return;
+		} catch (IOException ioe){
+			System.out.println("map file could not be read in SFileRead class readMapFile() method");
+			return;
+		}
+		filePosition = 0;
+		//line 1: the game dimensions
+		frameWidth = nextInt();
+		frameHeight = nextInt();
+		//line 2: the spawn point
+		spawnX = nextInt();
+		spawnY = nextInt();
+		//line 3: the edge warps
+		edgeWarpLeft = nextMapNumber();
+		hasEdgeWarpLeft = !lastValueWasNone;
+		edgeWarpRight = nextMapNumber();
+		hasEdgeWarpRight = !lastValueWasNone;
+		edgeWarpUp = nextMapNumber();
+		hasEdgeWarpUp = !lastValueWasNone;
+		edgeWarpDown = nextMapNumber();
+		hasEdgeWarpDown = !lastValueWasNone;
+		//line 4: the shape count, followed by one line per shape
+		shapeCount = nextInt();
+		fileShapeData = new int[shapeCount][9];
+		for (int i = 0; i < shapeCount; i++){
+			for(int j = 0; j < 9; j++){
+				fileShapeData[i][j] = nextInt();
+			}
 		}
+		//the warp count, followed by one line per in-map-warp
+		warpCount = nextInt();
+		warpList = new int[warpCount][3];
+		for (int i = 0; i < warpCount; i++){
+			for (int j = 0; j < 3; j++){
+				warpList[i][j] = nextMapNumber();
+			}
+		}
+		fileBytes = null; //the file contents are not needed anymore
 	}
 
 	/**
-	 * read the edge warps from the file.
-	 * most are just numbers, indicating
-	 * the map number to warp to.
-	 * 'n' represents that there is 
-	 * no edge warp in a particular direction,
-	 * so the player should just warp to the
-	 * opposite side of the current map. 
+	 * read the whole map from its compiled binary file. the file is memory-mapped
+	 * and its values are read straight into the shape data and warp list.
 	 * 
+	 * the binary format is a list of 4 byte, big-endian ints: 
+	 * BINARY_MAGIC, BINARY_VERSION, the width, height, spawn x, spawn y, the 
+	 * left, right, up and down edge warps, the shape count, the warp count, then
+	 * 9 ints for each shape (the same values as a line in the text file), then 
+	 * 3 ints for each in-map-warp. BINARY_NO_MAP takes the place of 'n'.
+	 * @return true if the file was read, false if it could not be read (in which case the text file should be read instead)
 	 */
-	public void getEdgeWarps(){
-		Scanner scan1;
-		try {
-			scan1 = new Scanner(new FileReader(fileName));
-			scan1.nextLine();
-			scan1.nextLine();
-			String left = scan1.next();
-			if (left.equals("n")){
-				hasEdgeWarpLeft = false;
-				edgeWarpLeft = map;
-			} else {
-				hasEdgeWarpLeft = true;
-				edgeWarpLeft = Integer.parseInt(left);
+	public boolean readBinaryMapFile(){
+		try (FileChannel channel = FileChannel.open(Paths.get(binaryFileName), StandardOpenOption.READ)){
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < BINARY_HEADER_INTS * 4 || buffer.getInt() != BINARY_MAGIC || buffer.getInt() != BINARY_VERSION){
+				System.out.println("map file " + binaryFileName + " is not a compiled map in SFileRead class readBinaryMapFile() method");
+				return false;
 			}
-			String right = scan1.next();
-			if (right.equals("n")){
-				hasEdgeWarpRight = false;
-				edgeWarpRight = map;
-			} else {
-				hasEdgeWarpRight = true;
-				edgeWarpRight = Integer.parseInt(right);
+			frameWidth = buffer.getInt();
+			frameHeight = buffer.getInt();
+			spawnX = buffer.getInt();
+			spawnY = buffer.getInt();
+			edgeWarpLeft = binaryMapNumber(buffer.getInt());
+			hasEdgeWarpLeft = edgeWarpLeft != map;
+			edgeWarpRight = binaryMapNumber(buffer.getInt());
+			hasEdgeWarpRight = edgeWarpRight != map;
+			edgeWarpUp = binaryMapNumber(buffer.getInt());
+			hasEdgeWarpUp = edgeWarpUp != map;
+			edgeWarpDown = binaryMapNumber(buffer.getInt());
+			hasEdgeWarpDown = edgeWarpDown != map;
+			int shapes = buffer.getInt();
+			int warps = buffer.getInt();
+			if (shapes < 0 || warps < 0 || buffer.remaining() != (shapes * 9 + warps * 3) * 4){
+				System.out.println("map file " + binaryFileName + " is the wrong size in SFileRead class readBinaryMapFile() method");
+				return false;
 			}
-			String up = scan1.next();
-			if (up.equals("n")){
-				hasEdgeWarpUp = false;
-				edgeWarpUp = map;
-			} else {
-				hasEdgeWarpUp = true;
-				edgeWarpUp = Integer.parseInt(up);
+			IntBuffer records = buffer.asIntBuffer(); //everything after the header is ints, so read them as ints
+			shapeCount = shapes;
+			fileShapeData = new int[shapeCount][9];
+			for (int i = 0; i < shapeCount; i++){
+				records.get(fileShapeData[i]);
 			}
-			String down = scan1.next();
-			if (down.equals("n")){
-				hasEdgeWarpDown = false;
-				edgeWarpDown = map;
-			} else {
-				hasEdgeWarpDown = true;
-				edgeWarpDown = Integer.parseInt(down);
+			warpCount = warps;
+			warpList = new int[warpCount][3];
+			for (int i = 0; i < warpCount; i++){
+				records.get(warpList[i]);
+				warpList[i][0] = binaryMapNumber(warpList[i][0]);
 			}
-		} catch (FileNotFoundException fnfe) {
-			System.out.println("no map file found in SFileRead class getEdgeWarps() method");
+			return true;
+		} catch (IOException ioe){
+			System.out.println("map file " + binaryFileName + " could not be read in SFileRead class readBinaryMapFile() method");
+			return false;
+		}
+	}
+
+	/**
+	 * turn a map number from a compiled map file into a real map number.
+	 * BINARY_NO_MAP becomes the current map number, the same as 'n' in text files.
+	 * @param value the map number as stored in the compiled file
+	 * @return the map number
+	 */
+	private int binaryMapNumber(int value){
+		return value == BINARY_NO_MAP ? map : value;
+	}
+
+	/**
+	 * skip past any spaces, tabs, and line breaks in the file contents.
+	 */
+	private void skipWhitespace(){
+		while (filePosition < fileBytes.length && fileBytes[filePosition] <= ' '){
+			filePosition++;
 		}
 	}
+
 	/**
-	 * read the game dimensions from the file. 
+	 * read the next whole number from the file contents. numbers that do
+	 * not fit in an int are not numbers, the same as with a Scanner.
+	 * @return the number
 	 */
-	public void gameDimensions(){
-		int width = 0;
-		int height = 0;
-		String fileName = "maps/" + map + ".txt";
-		Scanner scan1;
-		try {
-			scan1 = new Scanner(new FileReader(fileName));
-			width = scan1.nextInt();
-			height = scan1.nextInt();
-			frameHeight = height;
-			frameWidth = width;
-		} catch (FileNotFoundException fnfe) {
-			System.out.println("no map file found for map in SFileRead class gameDimensions() method");
+	private int nextInt(){
+		skipWhitespace();
+		if (filePosition >= fileBytes.length){
+			throw new NoSuchElementException("map file " + fileName + " ended early");
+		}
+		boolean negative = false;
+		if (fileBytes[filePosition] == '-'){
+			negative = true;
+			filePosition++;
+		}
+		int start = filePosition;
+		long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		while (filePosition < fileBytes.length && fileBytes[filePosition] >= '0' && fileBytes[filePosition] <= '9'){
+			value = value * 10 + (fileBytes[filePosition] - '0');
+			if (value > limit){
+				throw new InputMismatchException("map file " + fileName + " has a number that is too big at byte " + start);
+			}
+			filePosition++;
 		}
+		if (filePosition == start || (filePosition < fileBytes.length && fileBytes[filePosition] > ' ')){
+			throw new InputMismatchException("map file " + fileName + " has something that is not a number at byte " + start);
+		}
+		return (int) (negative ? -value : value);
 	}
+
 	/**
-	 * read the spawn point from the file.
+	 * read the next map number from the file contents, which is either a 
+	 * number or 'n'. 'n' is read as the current map number, and sets
+	 * lastValueWasNone to true. the 'n' has to be on its own, so a word
+	 * that starts with 'n' is not a map number.
+	 * @return the map number
 	 */
-	public void getSpawn(){
-		String fileName = "maps/" + map + ".txt";
-		Scanner scan1;
-		try {
-			scan1 = new Scanner(new FileReader(fileName));
-			scan1.nextLine();
-			spawnX = scan1.nextInt();
-			spawnY = scan1.nextInt();
-		} catch (FileNotFoundException fnfe) {
-			System.out.println("no map file found in SFileRead class getSpawn() method");
+	private int nextMapNumber(){
+		skipWhitespace();
+		if (filePosition < fileBytes.length && fileBytes[filePosition] == 'n'
+				&& (filePosition + 1 == fileBytes.length || fileBytes[filePosition + 1] <= ' ')){
+			filePosition++;
+			lastValueWasNone = true;
+			return map;
 		}
+		lastValueWasNone = false;
+		return nextInt();
 	}
 
 	/**
@@ -284,6 +368,14 @@ public class SFileRead {
 
 	}
 	
+	/**
+	 * Return the map number that was read
+	 * @return int: the map number
+	 */
+	public int getMapNumber(){
+		return map;
+	}
+
 	/**
 	 * Return the warp data, the 2 dimensional array that contains
 	 * all information about each in-map-warp in the game
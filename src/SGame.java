@@ -1,17 +1,16 @@
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.awt.event.KeyEvent;
-import java.awt.event.KeyListener;
-import java.util.Observable;
-import java.util.Observer;
-import javax.swing.Timer;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 /**
  * The game class for Littleman, which handles distribution and management of all 
  * information to other classes necessary for the game to run. All information 
  * comes through the game class, and is either used there or distributed to 
- * somewhere else. All other classes are instantiated here. This class also 
- * handles such features as gravity. 
+ * somewhere else. All other classes are instantiated here. The game itself
+ * (movement, gravity, warps, etc.) is simulated by an SSimulation, which this
+ * class ticks with the game loop, feeds key presses into, and draws with the
+ * SGamePanel.
  * 
  * changelog:
  * 1.1: read in-map-warps
@@ -23,113 +22,48 @@ import javax.swing.Timer;
  * 		movement speed no longer dependent on computer's key repeat 
  * 		delay), improved normWarp file format ('n' now specifies 
  *		that destination is same as current map)
+ * 1.4  one fixed-timestep game loop (SGameLoop) drives movement, jumps
+ * 		and gravity in a single tick, in place of four Swing Timers
+ * 1.5  game logic moved into SSimulation, which runs without a display
+ * 1.6  key presses are queued (SInputQueue) and handled at the start 
+ * 		of each tick, in place of the Observable KeyPressNotifier
+ * 1.7  the simulation samples which keys are held down once per tick,
+ * 		so key repeats no longer cause extra moves
+ * 1.8  games can be recorded to replay files (SReplay), and played back
+ * 		without a display to check that they still play the same way 
+ * 		(SReplayPlayer)
+ * 1.9  maps bigger than the view scroll to follow the player, and only
+ * 		the shapes in view are drawn (SRenderIndex)
+ * 1.10 optional active rendering, on a render thread with page flipping
+ * 		(SActiveRenderer)
+ * 1.11 the game loop ticks on its own thread, and only drawing is done
+ * 		on the event thread, so key presses never wait for ticks
  *
  * @version Version 1.3, Tuesday, April 11, 2017
  * @author Adam Cogen
  *
  */
-public class SGame implements Observer {
-	private int map = 19; //current map number
-	private SFileRead sFile; //the class that will read data stored in map files
-	private SMap sMap; //the class that will store map data 
+public class SGame implements SInputQueue.Handler, SGameLoop.Steppable, SSimulation.MapListener {
+	private int map = 19; //starting map number
+	private SMapCache mapCache; //keeps recently used maps loaded, so that they do not have to be read from their files again
+	private SMapPrefetcher prefetcher; //loads the maps next to the current map in the background
 	private SGamePanel sPanel; //the class that will display the game and sense key presses
-	private SChar sChar; //the class that will store information about the player and the sprite
-	private int moveSize; //used to check collision before moving to a new location that is distance moveSize away
-	private int jumpStep; //keeps track of which step of the jump animation the player is on during jumps
-	private Timer jumpTimer; //the timer which will start during jumps, starting the jump animation 
-	private Timer fallTimer; //the timer that will start while falling short distances. at a certain speed, a different faster timer starts
-	private Timer fastFallTimer; //the faster timer, which handles falling over longer distances and at higher speed
-	boolean fastFall = false; //is the fast fall timer running? if so, this will be true. otherwise, false.
-	private int partialJumpHeight; // one third of the jump height, used to increment char Y on each step of jumpTimer, which has three steps.
-	private int partialMoveSize; //one third of total move size
-	private int edgeWarpOffsetL = 15; //used to calibrate the position of edge warp on the left side of the map
-	private int edgeWarpOffsetR = 5; //used to calibrate the position of edge warp on the right side of the map
-	private int edgeWarpOffsetU = 2; //used to calibrate the position of edge warp at the top of the map
-	private int edgeWarpOffsetD = 22; //used to calibrate the position of edge warp at the bottom of the map
-	private int leftCollisionOffset = 1; //used to fix the discrepancy between the player's x position and its left side, for collision etc.
-	private int rightCollisionOffset = 8; //used to fix the discrepancy between the player's x position and its right side, for collision etc.
-	private int upCollisionOffset = -22; //used to fix the discrepancy between the player's y position and its top, for collision etc.
-	private int downCollisionOffset = -1; //used to fix the discrepancy between the player's y position and its bottom, for collision etc.
-	private boolean moving = false; //is the player moving? true when arrow key(s) being pressed
-	private Timer moveTimer; //timer to move the player while arrow key(s) being pressed
-	private int[] keyArray; //an array that holds data about which keys are currently being pressed
-	//private boolean moveExecuted = true; //after a key was pressed, has the player moved? if so, make false. if not, remains true.
-	private boolean initLeft = false; //when left arrow is pressed, character moves left immediately one time without starting moveTimer, to prevent lag. if that move has already happened, this will be false. if it needs to happen still, this boolean will be true.
-	private boolean initUp = false; //when up arrow is pressed, character moves up immediately one time without starting moveTimer, to prevent lag. if that move has already happened, this will be false. if it needs to happen still, this boolean will be true.
-	private boolean initRight = false; //when right arrow is pressed, character moves right immediately one time without starting moveTimer, to prevent lag. if that move has already happened, this will be false. if it needs to happen still, this boolean will be true.
-	private boolean initDown = false; //when down arrow is pressed, character moves down immediately one time without starting moveTimer, to prevent lag. if that move has already happened, this will be false. if it needs to happen still, this boolean will be true.
-	private static final int MOVE_TIMER_FREQUENCY = 100; //how often does the moveTimer tick? determines how quickly the character will move when holding down an arrow key
-	private int downSlow = 0; //this will be used so that the in the moveTimer, the move() method will only be called in the down direction every other timer tick. this is simply to make the downward movement slower. 
-	/*
-	 * how acceleration-due-to-gravity works:
-	 * ~   gravityStart = GRAVITY_INITIAL_SPEED;
-	 * ~   every fallTimer clock tick, use a while loop to 
-	 *     move down 1 pixel (int)(gravityStart / GRAVITY_DIVIDER) times.
-	 * ~   every iteration through the while loop, gravityStart increments
-	 *     by GRAVITY_ACCELERATION, so that the value of 
-	 *     (int)(gravityStart / GRAVITY_DIVIDER) becomes larger every clock tick. 
-	 *     this means that for every clock tick, the player moves down 1 pixel at
-	 *     time, a greater number of times (the while loops runs more times).
-	 *~    gravityStart will stop incrementing once 
-	 *     (int)(gravityStart / GRAVITY_DIVIDER) equals TERMINAL_VELOCITY.
-	 *~    every time the player hits water, climbable, or solid ground, 
-	 *     the variable gravityStart resets back to GRAVITY_INITIAL_SPEED
-	 *     because their fall is broken.
-	 *     FALL_TIMER_FREQUENCY and JUMP_TIMER_FREQUENCY are the time in milliseconds
-	 *     between clock ticks of the fall timer and jump timer.
-	 *~    the boolean field normWarpResetsGravity determines whether going through
-	 *     an in-map warp resets your fall speed back to the initial value.
-	 *     if this is false, you will reach terminal velocity and continue 
-	 *     falling at that speed until your fall is broken, even if you reach
-	 *     an in-map warp.
-	 *~    the boolean field edgeWarpResetsGravity determines the same thing,
-	 *     but for edge warps (e.g. 'down') instead of in-map warps. 
-	 *~    to turn off acceleration-due-to-gravity, make sure that 
-	 *     GRAVITY_INITIAL_SPEED / GRAVITY_DIVIDER = 2 and 
-	 *     GRAVITY_ACCLERATION = 0.
-	 *~    Default values for gravity-on: initial_speed = 4, divider = 2,
-	 *     acceleration = .2, fall and jump timers = 120, terminal velocity = 15,
-	 *     normWarpResets = false, edgeWarpResets = false.
-	 *     
-	 *     new notes, about fast fall timer: 
-	 *     all of the above is still true, except now the values to change to adjust 
-	 *     gravity are the lower set of values, the "fastFallTimer stuff."
-	 *     the normal-speed fall is characterised by 120 millisecond increments.
-	 *     so when the player is on the ground and they jump up then land right away,
-	 *     the way up is drawn in 120 millisecond increments, and so is the way down.
-	 *     the problem was that once the player started accelerating, the 120
-	 *     milllisecond increments weren't enough for the faster falling, so the player
-	 *     appeared to "lag," or move too fast, with large spatial gaps between 
-	 *     each time he was redrawn. simply changing the original fallTimer 
-	 *     increments to a faster time meant that a jump-then-land, on solid 
-	 *     ground, looked very weird: the way up was 120 millisecond increments, and
-	 *     the way down was 30 millisecond increments, so it looked too high resolution.
-	 *     fastFall is a new feature which preserves the asthetic of the older,
-	 *     slower fall, while still allowing for acceleration that does not cause 
-	 *     the falling player to look "laggy." it does this by turning off the original
-	 *     fallTimer after the player reaches a certain speed, and instead turning on 
-	 *     fastFallTimer, which operates in 30 millisecond increments instead of
-	 *     120 millisecond increments. 
-	 */
-	private static final double GRAVITY_INITIAL_SPEED = 4; //real intitial speed is (int)(GRAVITY_INITIAL_SPEED / GRAVITY_DIVIDER)
-	private double gravityStart = GRAVITY_INITIAL_SPEED; //gravityStart will be incremented to increase fall speed over time
-	private static final double GRAVITY_DIVIDER = 2;  //actual initial speed will be (int)(GRAVITY_INITIAL_SPEED / GRAVITY_DIVIDER)
-	private static final double GRAVITY_ACCELERATION = .2; //gravityStart increments by this much with every clock tick, speeding up fall over time
-	private static final int FALL_TIMER_FREQUENCY = 120; //frequency of fallTimer in milliseconds
-	private static final int JUMP_TIMER_FREQUENCY = 120; //frequency of jumpTimer in milliseconds
-	private boolean normWarpResetsGravity = false; //setting. does an in-map-warp reset fall speed? 
-	private boolean edgeWarpResetsGravity = false; //setting. does an edge-warp reset fall speed?
-
-	//fastFallTimer stuff:
-	private static final int FAST_FALL_TIMER_FREQUENCY = 30; //frequency of the fastFallTimer, for faster fall speeds
-	private static final double FAST_GRAVITY_INITIAL_SPEED = 9; //real intitial speed is (int)(FAST_GRAVITY_INITIAL_SPEED / FAST_GRAVITY_DIVIDER)
-	private double fastGravityStart = FAST_GRAVITY_INITIAL_SPEED; //fastGravityStart will be incremented to increase fall speed over time
-	private static final double FAST_GRAVITY_DIVIDER = 6;  //real intitial speed is (int)(FAST_GRAVITY_INITIAL_SPEED / FAST_GRAVITY_DIVIDER)
-	private static final double FAST_GRAVITY_ACCELERATION = .2; //fastGravityStart increments by this much with every clock tick, speeding upfall over time
-	int accelCount = 1; //accelCount increments until it equals accelAt, at which point fast fall speed accelerates by FAST_GRAVITY_ACCELERATION
-	int accelAt = 1; //can be chan
-
-	private static final int TERMINAL_VELOCITY = 8; //terminal velocity (in pixels-per-fastFallTimer-clock-tick)
+	private SInputQueue input; //key presses and releases from the sPanel, waiting for the next tick
+	private int keys; //the keys being held down, as SSimulation INPUT_ bits. bit (1 << k) is SInputQueue key k
+	private int pressedSinceLastTick; //the keys pressed since the last tick, even if they have been released again, as SSimulation INPUT_ bits
+	private SSimulation simulation; //the game itself: the map, the player, movement, gravity and warps
+	private SGameLoop gameLoop; //the fixed-timestep loop that ticks the simulation and draws the game
+	private int previousCharX; //the player's x position at the start of the latest tick, for smoothing the drawing between ticks
+	private int previousCharY; //the player's y position at the start of the latest tick, for smoothing the drawing between ticks
+	private boolean warpedThisTick = false; //did the player change maps since the latest tick started? if so, the drawing is not smoothed, since the player did not travel there
+	private SMap mapToShow; //a map the player changed to, that the sPanel has not been given yet (it is given the map in render(), on the event thread), or null
+	private boolean rasterizeMaps = true; //setting. are collision and climbability worked out for every pixel when a map loads (faster, uses more memory), or checked against the shapes every time?
+	private static final int MAP_CACHE_CAPACITY = SMapCache.DEFAULT_CAPACITY; //setting. how many recently used maps are kept loaded
+	private boolean prefetchMaps = true; //setting. are the maps next to the current map loaded in the background, before the player warps to them?
+	private boolean recordReplay = false; //setting. is the game recorded to a replay file in the replays folder when the game is closed, for reproducing bugs?
+	private boolean activeRendering = false; //setting. is the game drawn on its own thread with page flipping (see SActiveRenderer), instead of by Swing repaints?
+	private static final int ACTIVE_RENDERING_FPS = 120; //setting. with active rendering, the most frames per second to draw. the game loop also runs at this rate
+	private SReplay replay; //the recording of this game, or null if it is not being recorded
 
 	/**
 	 * The SGame class consolidates all information 
@@ -139,919 +73,161 @@ public class SGame implements Observer {
 	public SGame(int mapNumber) {
 		//map = mapNumber; //comment this to use map number from fields, uncomment to use map number from main method
 
-		partialJumpHeight = 1;
-		partialMoveSize = 1;
-		jumpStep = 3;
-		moveSize = 3;
-
-		sPanel = new SGamePanel(this);
-		sChar = new SChar();
-		changeMap(map); //initializes necessary classes and information to load a map, put into a method for use with both constructor and warps
-		setCharX(sFile.getSpawnX());
-		setCharY(sFile.getSpawnY());
-
-		keyArray = new int[5];
-
-		/**
-		 * Timer listener is involved with the 'up' direction of moveChar.
-		 * Reads and increments the jumpStep variable, which keeps track of 
-		 * which step of the jump (step 0, step 1, step 2, etc.) we are on.
-		 * stops the jump at step 4 (there are only 3 steps). moves char's
-		 * Y position in a different way depending on which step we are one,
-		 * then repaints the panel after each step is complete.
-		 * @author adamcogen
-		 *
-		 */
-		class TimerListenerUp implements ActionListener{
-
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				/*
-				 * since the first two steps of the jump are identical,
-				 * if we just used the jumpStep variable in the switch
-				 * statement, we would need to rewrite the exact same
-				 * code twice for case 0 and case 1. the switchJumpStep
-				 * variable's value is based upon the jumpStep value,
-				 * but it is logically processed so that the same code
-				 * can be used for both jumpStep == 0 and jumpStep == 1.
-				 */
-				int switchJumpStep = 2;
-				if(jumpStep == 0 || jumpStep == 1){
-					switchJumpStep = 0;
-				} else if (jumpStep == 2){
-					switchJumpStep = 1;
-				} else if (jumpStep == 3){
-					switchJumpStep = 2;
-				}
-				switch(switchJumpStep){
-				case 0:
-					if (checkCollision('d', sChar.getX(), sChar.getY() - moveSize)){
-						setCharY(sChar.getY() - 3);
-						if (sChar.getY() <= 0 - edgeWarpOffsetU){
-							edgeWarp('u');
-						}
-					}
-					break;
-				case 1:
-					jumpTimer.stop();
-					setStep(0);
-					checkFall();
-					break;
-				}
-				jumpStep++;
-				//				if((checkClimb() == 3) && sChar.getStep() == 1){
-				//					sChar.incStep();
-				//				}
-				refreshChar();
-				sPanel.refreshImage();
-			}
-		}
-		jumpTimer = new Timer(JUMP_TIMER_FREQUENCY, new TimerListenerUp());
-
-		/**
-		 * Timer that during a fall after a certain velocity is reached.
-		 * Handles fast falling and has a higher rate of occurrence so that
-		 * the fall movement appears smoother.
-		 * 
-		 * @author adamcogen
-		 *
-		 */
-		class TimerListenerDownFast implements ActionListener{
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				/*
-				 * If the player is not on the ground, move down. Try this twice. 
-				 * Repeating this step is better than moving down all at once because 
-				 * it checks the ground below the player more often, preventing the 
-				 * player from falling too far into the ground. 
-				 */
-				for (int i = 0; i < ((int) (fastGravityStart / FAST_GRAVITY_DIVIDER)); i++){
-					//System.out.println((int) (gravityStart / GRAVITY_DIVIDER));
-					if(!isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 0){
-						setCharY(sChar.getY() + partialJumpHeight);
-						if (sChar.getY() >= sPanel.getFrameHeight() + edgeWarpOffsetD){
-							//if the player is off the edge of the map, edgeWarp down.
-							edgeWarp('d');
-						}
-
-						/*
-						 * If the player has not reached terminal velocity, increase the fall speed.
-						 * accelCount and accelAt would the fall to only accelerate once per  certain
-						 * number of timer ticks, but it is not currently implemented.
-						 */
-						if (fastGravityStart <= TERMINAL_VELOCITY * FAST_GRAVITY_DIVIDER && accelCount == accelAt){
-							fastGravityStart += FAST_GRAVITY_ACCELERATION;
-							accelCount = 0;
-						} else {
-							accelCount++;
-						}
-					}
-				}
-				/*
-				 * Perform the same step one more time. If the player was in "water" or on 
-				 * something climbable this whole time, none of these steps were
-				 * performed, but this is addressed next.
-				 */
-				boolean problem = (checkClimb() == 0);
-				//for(int i = 0; i < Integer.MAX_VALUE; i++);
-				if (!isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 0){
-					setCharY(sChar.getY() + partialJumpHeight);
-					if (sChar.getY() >= sPanel.getFrameHeight() + edgeWarpOffsetD){
-						edgeWarp('d');
-					}
-				}
-				/*
-				 * if the fastFallTimer gets to the else statement, it just means player isn't freefalling anymore,
-				 * so stop the timer.
-				 */
-				else {
-					fastFallTimer.stop();
-					fastFall = false;
-					setStep(0);
-					resetGravity();
-				}
-				refreshChar();
-				sPanel.refreshImage();
-			}
-		}
-		fastFallTimer = new Timer(FAST_FALL_TIMER_FREQUENCY, new TimerListenerDownFast());
-
-		/**
-		 * Timer listener is involved with the 'down' direction of move().
-		 * Handles short jumps, such as jumping while on solid ground.
-		 * Once a fall accelerates to a certain speed, this timer stops
-		 * and the fastFallTimer starts. 
-		 * 
-		 * @author Adam Cogen
-		 *
-		 */
-		class TimerListenerDown implements ActionListener{
-
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				/*
-				 * If the player is not on the ground, move down. Try this twice. 
-				 * Repeating this step is better than moving down all at once because 
-				 * it checks the ground below the player more often, preventing the 
-				 * player from falling too far into the ground. 
-				 */
-				for (int i = 0; i < ((int) (gravityStart / GRAVITY_DIVIDER)); i++){
-					//System.out.println((int) (gravityStart / GRAVITY_DIVIDER));
-					if(!isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 0 && !fastFall){
-						setCharY(sChar.getY() + partialJumpHeight);
-						if (sChar.getY() >= sPanel.getFrameHeight() + edgeWarpOffsetD){
-							//if the player is off the edge of the map, edgeWarp down.
-							edgeWarp('d');
-						}
-
-						/*
-						 * If the player has not reached terminal velocity, increase the fall speed
-						 * by the gravity acceleration constant.
-						 */
-						if (gravityStart <= TERMINAL_VELOCITY * GRAVITY_DIVIDER){
-							gravityStart += GRAVITY_ACCELERATION;
-						}
-						/*
-						 * if the fall speed is greater than 3 pixels per clock tick, stop the fallTimer
-						 * and start the fastFallTimer.
-						 */
-						if (gravityStart / GRAVITY_DIVIDER >= 3){
-							fastFall = true;
-							fastFallTimer.start();
-							fallTimer.stop();
-						}
-					}
-				}
-				/*
-				 * Perform the same step one more time. If the player was in "water" or on 
-				 * something climbable this whole time, none of these steps were
-				 * performed, but this is addressed next.
-				 */
-				boolean problem = (checkClimb() == 0);
-				//for(int i = 0; i < Integer.MAX_VALUE; i++);
-				if (!isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 0 && !fastFall){
-					setCharY(sChar.getY() + partialJumpHeight);
-					if (sChar.getY() >= sPanel.getFrameHeight() + edgeWarpOffsetD){
-						edgeWarp('d');
-					}
-					/*
-					 * If the player is in water, move it down one increment here.
-					 * This way, in water, the player moves down one increment 
-					 * per timer tick, rather than 3 increments if it was falling 
-					 * in air. 
-					 */
-				} else if (!isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 2){
-					setCharY(sChar.getY() + partialJumpHeight);
-					if (sChar.getY() >= sPanel.getFrameHeight() + edgeWarpOffsetD){
-						edgeWarp('d');
-					}
-					resetGravity();
-					/*
-					 * If for some reason the fastFall timer has started but the fallTimer
-					 * is still running (this is possible by jumping in rapid succession),
-					 * the fallTimer will still be stopped here, so nothing will go wrong.
-					 */
-				} else if (fastFall){
-					fallTimer.stop();
-					/*
-					 * If none of the previous cases are true, the fall timer should 
-					 * stop, as the player has landed on solid ground (or on something
-					 * climbable).
-					 */
-				} else {
-					fallTimer.stop();
-					setStep(0);
-					resetGravity();
-				}
-				refreshChar();
-				sPanel.refreshImage();
-			}
-		}
-
-		fallTimer = new Timer(FALL_TIMER_FREQUENCY, new TimerListenerDown());
-
-		checkFall();
-
-		/**
-		 * 
-		 * MoveTimerListener is the ActionListener for the moveTimer, which calls
-		 * the move(char direction) method, causing the character to move. 
-		 * Different combinations of keys being held down cause different movements.
-		 * Necessary movements will happen whenever the timer ticks, so increasing
-		 * the frequency of timer ticks will make the player move faster. 
-		 * 
-		 * @author Adam Cogen
-		 *
-		 */
-		class MoveTimerListener implements ActionListener{
-
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				boolean move1 = false; //did the first move happen?
-				boolean move2 = false; //did the second move happen?
-				
-				if(keyArray[0] == 1){ //left cases
-					if(keyArray[1] == 1){ //left and up
-						move1 = move('u');
-						move2 = move('l');
-						if((move1 && move2 && (checkClimb() == 1 || checkClimb() == 3))){ //if both moves didn't happen, no need to increment step
-							sChar.incStep();	
-						}
-					} else if (keyArray[3] == 1){ //left and down
-						move1 = move('d');
-						move2 = move('l');
-						if((move1 && move2 && (checkClimb() == 1 || checkClimb() == 2 || checkClimb() == 3))){
-							sChar.incStep();	
-						}
-					}  else { //left only 
-						move('l');
-					}
-				} else if (keyArray[2] == 1){ //right cases
-					if(keyArray[1] == 1){ //right and up
-						move1 = move('u');
-						move2 = move('r');
-						if((move1 && move2 && (checkClimb() == 1 || checkClimb() == 3))){
-							sChar.incStep();	
-						}
-					} else if (keyArray[3] == 1){ //right and down
-						move1 = move('d');
-						move2 = move('r');
-						if((move1 && move2 && (checkClimb() == 1 ||checkClimb() == 2 || checkClimb() == 3))){
-							sChar.incStep();	
-						}
-					} else { //right only
-						move('r');
-					}
-				} else if (keyArray[1] == 1){ //up only
-					move('u');
-				} else if (keyArray[3] == 1){ //down only
-					/*
-					 * every time a downward movement happens within moveTime, 
-					 * downSlow increments. the move() method for down will not actually
-					 *  be called unless downSlow equals 1, so downward movement only 
-					 *  happens every other timer tick. this is to make downward movement 
-					 *  slower. downSlow is reset to 0 at the same time that the move() 
-					 *  method for down is called (every other timer tick). 
-					 */
-					//System.out.println(downSlow);
-					//if(downSlow == 2){
-						move('d');
-						//downSlow = 0;
-					//}
-					//downSlow++; 
-				}
-				//moveExecuted = true;
-			}
+		mapCache = new SMapCache(MAP_CACHE_CAPACITY, rasterizeMaps);
+		prefetcher = new SMapPrefetcher(mapCache);
+		input = new SInputQueue();
+		sPanel = new SGamePanel(input, activeRendering ? ACTIVE_RENDERING_FPS : 0);
+		simulation = new SSimulation(mapCache, map, this);
+		previousCharX = simulation.getChar().getX();
+		previousCharY = simulation.getChar().getY();
+		if (recordReplay){
+			startRecording();
 		}
-		moveTimer = new Timer(MOVE_TIMER_FREQUENCY, new MoveTimerListener());
-
+		gameLoop = activeRendering ? new SGameLoop(this, ACTIVE_RENDERING_FPS) : new SGameLoop(this);
+		gameLoop.start();
 	}
 
 	/**
-	 * Check if the player is on the ground or on something climbable.
-	 * If not, start the fall timer, unless the fastFallTimer is already
-	 * running.
+	 * Advance the game by one tick of the game loop (SGameLoop.TICK_MILLIS).
+	 * Any keys pressed or released since the last tick are handled first.
+	 * Called on the game loop's thread.
+	 * Keys that were pressed are passed on even if they were released again
+	 * in the same drain, so that a quick tap still moves the player.
 	 */
-	public void checkFall(){
-		int currentX = sChar.getX();
-		int currentY = sChar.getY();
-		if(!isOnGround(currentX, currentY) && checkClimb() != 1 && checkClimb() != 3){
-			//System.out.println("fall timer started");
-			if(!fastFall){
-				fallTimer.start();
-			}
+	@Override
+	public void tick(){
+		input.drain(this);
+		simulation.setInput(keys, pressedSinceLastTick);
+		previousCharX = simulation.getChar().getX();
+		previousCharY = simulation.getChar().getY();
+		warpedThisTick = false;
+		simulation.tick();
+		if (replay != null){
+			replay.record(keys, pressedSinceLastTick, simulation.getMapNumber(), simulation.getChar().getX(), simulation.getChar().getY());
 		}
+		pressedSinceLastTick = 0;
 	}
 
 	/**
-	 * Move the player in a specified direction if 
-	 * that movement is possible. This is called
-	 * after an arrow key is pressed. Different 
-	 * directions have different implications 
-	 * (up can start the jumpTimer, start "climbing,"
-	 * or start "swimming," depending on the climbability
-	 * of the current location).
-	 * @param dir A character specifying the direction to move.
-	 * 'l' = left, 'r' = right, 'u' = up, 'd' = down.
-	 * @return true if the move happened, false otherwise
+	 * Start recording the game to a replay, which is saved to the replays
+	 * folder when the game is closed. The file is named after the time the 
+	 * game started.
 	 */
-	public boolean move(char dir){
-
-		boolean moved = false; //this will be used to make it so that the legs only move when the player actually moves
-
-		if (dir == 'r'){ //if the right arrow was pressed
-			/*
-			 * each direction's movements are 3 pixels, and operate on a for loop, which moves
-			 * one pixel at a time. this allows for more accurate collision detection, 
-			 * allowing the player to move only 1 or 2 pixels if a wall is 1 or 2 pixels 
-			 * away. this prevents strange looking gaps between the player and the wall.
-			 */
-			for(int i = 0; i < 3; i++){
-				if(checkCollision('r', sChar.getX() + partialMoveSize, sChar.getY())){
-					moved = true; 
-					setCharX(sChar.getX() + partialMoveSize);
-				}
-				//check if the player is off the map and needs to be edge-warped
-				if (sChar.getX() >= sPanel.getFrameWidth() + edgeWarpOffsetR){
-					edgeWarp(dir);
-				}
+	private void startRecording(){
+		replay = new SReplay(map, simulation.getChar().getX(), simulation.getChar().getY());
+		String fileName = "replays/" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + SReplay.REPLAY_EXTENSION;
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				new File("replays").mkdirs();
+				replay.save(fileName);
+				System.out.println("saved replay " + fileName);
+			} catch (IOException ioe){
+				System.out.println("could not save replay " + fileName + ": " + ioe.getMessage());
 			}
-
-		} else if (dir == 'l'){ //if the left arrow was pressed
-			//see comment in (dir == 'r') for explanation about for loop
-			for(int i = 0; i < 3; i++){
-				if(checkCollision('l', sChar.getX() - partialMoveSize, sChar.getY())){
-					setCharX(sChar.getX() - partialMoveSize);
-					moved = true; 
-				}
-				//check if the player is off the map and needs to be edge-warped
-				if (sChar.getX() <= 0 - edgeWarpOffsetL){
-					edgeWarp(dir);
-				}
-			}
-		} else if (dir == 'u'){ //if the up arrow was pressed
-			/*
-			 * up option 1: you are on the ground, in water, or on jumpable climb. 
-			 * there is room to jump without hitting something. start the jump timer,
-			 * which will allow you to jump.
-			 */
-			if(( (isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 0) || checkClimb() == 2 || checkClimb() == 3) && checkCollision('u', sChar.getX(), sChar.getY() - (3 *partialJumpHeight)) && jumpStep == 3){
-				//System.out.println("ya");
-				moved = true;
-				fallTimer.stop();
-				setCharY(sChar.getY() - (3 * partialJumpHeight));
-				setStep(0);
-				jumpStep = 0;
-				jumpTimer.start();
-			} 
-			/*
-			 * up option 2: you are not necessarily on the ground, but there is room 
-			 * to jump without hitting something, and  you can climb. Move the char
-			 * up by the move size, similar to how you would move left or right,
-			 * without starting the jumpTimer.
-			 */
-			else if((checkClimb() == 1)){
-				for(int i = 0; i < 3; i++){
-					if (checkCollision('u', sChar.getX(), sChar.getY() - partialJumpHeight)){
-						moved = true;
-						setCharY(sChar.getY() - partialJumpHeight); //non-stylized jump
-						//check if the player is off the map and needs to be edge-warped
-						if (sChar.getY() <= 0 - edgeWarpOffsetU){
-							edgeWarp(dir);
-						}
-					}
-				}
-			} 
-		} else if (dir == 'd'){ //if the down arrow was pressed
-			/*
-			 * If there is room to move down without colliding with something,
-			 * (this happens in the air, in water, or in something climbable)
-			 * then move the character down.
-			 */
-			for(int i = 0; i < 3; i++){
-				if((checkCollision('d', sChar.getX(), sChar.getY() + partialMoveSize) && jumpStep == 3)){
-					moved = true;
-					setCharY(sChar.getY() + partialMoveSize);
-					//check if the player is off the map and needs to be edge-warped
-					if (sChar.getY() >= sPanel.getFrameHeight() + edgeWarpOffsetD){ 
-						edgeWarp(dir);
-					}
-				}
-			}
-		} else if (dir == 's'){ //if right shift key was pressed
-			//do nothing. this can be implemented with various debug functions if necessary
-		}
-		if (moved){
-			sChar.incStep();
-		}
-		refreshChar();
-		sPanel.refreshImage();
-		checkClimb();
-
-		//check if the character is on stable ground after moving
-		if (jumpStep == 3){
-			/*
-			 * note: jumpStep will only equal 3 when the jumpTimer is not currently running.
-			 * this prevents the fallTimer from starting in checkFall() while the player is
-			 * still on the way up in a jump. 
-			 */
-			checkFall();
-		}
-		return moved;
+		}));
 	}
 
 	/**
-	 * Return the total number of arrow keys currently being held down
-	 */
-	public int keyArrayTotal(){
-		int total = 0;
-		for( int value : keyArray){
-			total += value;
-		}
-		return total;
-	}
-
-	/**
-	 * This observer is notified by the sGamePanel whenever an
-	 * arrow key is pressed or released. The moveTimer is then 
-	 * started or stopped based on which arrow key was pressed
-	 * or released.
-	 * Also note that after an arrow key is pressed, this method
-	 * will call the move(char direction) method itself (as 
-	 * opposed to leaving all calls to the moveTimer). This is
-	 * because otherwise the first movement will only happen
-	 * if it is held down long enough for a timer tick to happen.
-	 * The move() method is called once by this method for each
-	 * arrow key press. This resets every time that arrow key is
-	 * released. 
+	 * Draw the game. Called by the game loop once per frame, after any ticks 
+	 * for that frame. The player is drawn part of the way between where it 
+	 * was at the start of the latest tick and where it is now, depending on
+	 * how far real time has gotten towards the next tick, so that movement 
+	 * looks smooth even when frames and ticks do not line up. If the player
+	 * changed maps, the panel is given the new map first.
+	 * Called on the event thread.
+	 * @param alpha how far real time has gotten past the latest tick, from 0 up to 1
 	 */
 	@Override
-	public void update(Observable o, Object arg) {
-
-		if ((char) arg == 'l'){ //left arrow was pressed
-			if(keyArray[2] == 0){ //right not being pressed
-				if(!initLeft){ //if the initial left movement hasn't happened, do it
-					move('l');
-					initLeft = true; //the initial left movement has now happened.
-				}
-				keyArray[0] = 1;
-				//moveExecuted = false;
-				if(moving == false){
-					moveTimer.start();
-					moving = true;
-				}
-			}
-		} else if ((char) arg == 'r'){ //right arrow was pressed
-			if(keyArray[0] == 0){ //left not being pressed
-				if(!initRight){ //if the initial right movement hasn't happened, do it
-					move('r');
-					initRight = true; //the initial right movement has now happened.
-				}
-				keyArray[2] = 1;
-				//moveExecuted = false;
-				if(moving == false){
-					moveTimer.start();
-					moving = true;
-				}
-			}
-		} else if ((char) arg == 'u'){ //up arrow was pressed
-			if(keyArray[3] == 0){ //down not being pressed
-				if(!initUp){ //if the initial up movement hasn't happened, do it
-					move('u');
-					initUp = true; //the initial up movement has now happened.
-				}
-				keyArray[1] = 1;
-				//moveExecuted = false;
-				if(moving == false){
-					moveTimer.start();
-					moving = true;
-				}
-			}
-		} else if ((char) arg == 'd'){ //down arrow was pressed
-			if(keyArray[1] == 0){ //up not being pressed
-				if(!initDown){ //if the initial down movement hasn't happened, do it
-					move('d');
-					initDown = true; //the initial down movement has now happened.
-				}
-				keyArray[3] = 1;
-				//moveExecuted = false;
-				if(moving == false){
-					moveTimer.start();
-					moving = true;
-				}
-			}
-		} else if ((char) arg == 's'){ //shift key was pressed
-			move('s'); //this can by implemented for various debug functions if needed
-		} else if ((char) arg == 'n'){ //key was released, NOT CURRENTLY IMPLEMENTED
-			//no use for this yet
-		} else if ((char) arg == '0'){ //left arrow released
-			//if(moveExecuted == true){
-			keyArray[0] = 0;
-			initLeft = false; //the initial left movement is reset. next time left is pressed, the initial movement will happen.
-			if(keyArrayTotal() == 0){
-				moveTimer.stop();
-				moving = false;
-			}
-			//}
-		} else if ((char) arg == '1'){ //up arrow released
-			//if(moveExecuted == true){
-			keyArray[1] = 0;
-			initUp = false; //the initial up movement is reset. next time up is pressed, the initial movement will happen.
-			if(keyArrayTotal() == 0){
-				moveTimer.stop();
-				moving = false;
-			}
-			//}
-		} else if ((char) arg == '2'){ //right arrow released
-			//if(moveExecuted == true){
-			keyArray[2] = 0;
-			initRight = false; //the initial right movement is reset. next time right is pressed, the initial movement will happen.
-			if(keyArrayTotal() == 0){
-				moveTimer.stop();
-				moving = false;
-			}
-			//}
-		} else if ((char) arg == '3'){ //down arrow released
-			//if(moveExecuted == true){
-			keyArray[3] = 0;
-			initDown = false; //the initial down movement is reset. next time down is pressed, the initial movement will happen.
-			if(keyArrayTotal() == 0){
-				moveTimer.stop();
-				moving = false;
-			}
-			//}
-		} else if ((char) arg == '4'){ //shift key released, NOT CURRENTLY IMPLEMENTED
-
+	public void render(double alpha){
+		SChar sChar = simulation.getChar();
+		int drawX = sChar.getX();
+		int drawY = sChar.getY();
+		if (!warpedThisTick){
+			drawX = previousCharX + (int) Math.round((drawX - previousCharX) * alpha);
+			drawY = previousCharY + (int) Math.round((drawY - previousCharY) * alpha);
 		}
-	}
-	/**
-	 * Consolidate all char data; update the x, y, and step fields within the sPanel.
-	 * This is called whenever a change is made to the player's x position or y position
-	 * ( it is called within setCharX(), setCharY() ) so that other classes that rely on 
-	 * this information (sPanel) will know that it has changed. 
-	 */
-	public void refreshChar(){
-		sPanel.setStep(sChar.getStep());
-		sPanel.setCharX(sChar.getX());
-		sPanel.setCharY(sChar.getY());
-	}
-
-	/**
-	 * This changes the current map to a specified map,
-	 * and initializes all necessary classes and fields.
-	 * This is called for in-map-warps, edge-warps,
-	 * and within the constructor (in this case, 
-	 * the initial game map is the parameter). 
-	 * @param newMap the map to change to
-	 */
-	public void changeMap(int newMap){
-		sFile = new SFileRead(newMap);
-		sMap = new SMap(newMap);
-
-		//initialize sMap with sFile data
-		//shape data
-		sMap.setShapeData(sFile.getRectangleData());
-		sMap.setShapeCount(sFile.getShapeCount());
-		//edgewarps
-		sMap.setEdgeWarpDown(sFile.getEdgeWarpDown());
-		sMap.setEdgeWarpLeft(sFile.getEdgeWarpLeft());
-		sMap.setEdgeWarpRight(sFile.getEdgeWarpRight());
-		sMap.setEdgeWarpUp(sFile.getEdgeWarpUp());
-		//normWarps
-		sMap.setWarpCount(sFile.getWarpCount());
-		sMap.setWarpList(sFile.getWarpList());
-
-		//initialize sPanel with sFile data
-		//shape data
-		sPanel.setShapeData(sFile.getRectangleData());
-		sPanel.setShapeCount(sFile.getShapeCount());
-		//game size
-		sPanel.setFrameHeight(sFile.getFrameHeight());
-		sPanel.setFrameWidth(sFile.getFrameWidth());
-		//char step
-		sPanel.setStep(sChar.getStep());
-		//initialize and refresh panel
-		refreshChar();
-		sPanel.refreshImage();
-		sPanel.refreshSize();
-
-	}
-
-	/**
-	 * perform an edge warp in the specified direction.
-	 * @param direction char representing the direction 
-	 * 		  to perform the edge warp in. 
-	 * 		  'l' is left, 'r' is right, 'u' is up, 'd' 
-	 * 		  is down.
-	 */
-	public void edgeWarp(char direction){
-		if (direction == 'l'){ //left
-			map = sMap.getEdgeWarpLeft();
-			changeMap(map);
-			setCharX(sPanel.getFrameWidth() + edgeWarpOffsetR);
-		} else if (direction == 'r'){ //right
-			map = sMap.getEdgeWarpRight();
-			changeMap(map);
-			setCharX(0 - edgeWarpOffsetL);
-		} else if (direction == 'u'){ //up
-			map = sMap.getEdgeWarpUp();
-			changeMap(map);
-			setCharY(sPanel.getFrameHeight() + edgeWarpOffsetD);
-		} else if (direction == 'd'){ //down
-			map = sMap.getEdgeWarpDown();
-			changeMap(map);
-			setCharY(0 - edgeWarpOffsetU);
-		}
-		refreshChar();
-		if(edgeWarpResetsGravity){
-			resetGravity();
+		synchronized (sPanel.getDrawLock()){
+			if (mapToShow != null){
+				showMap(mapToShow);
+				mapToShow = null;
+			}
+			sPanel.setStep(sChar.getStep());
+			sPanel.setCharX(drawX);
+			sPanel.setCharY(drawY);
+			sPanel.refreshImage();
 		}
-		checkFall();
 	}
 
 	/**
-	 * checks the climbability of the current position by calling
-	 * SMap.getClimb(x, y). returns an int.
-	 * Also handles calls to normWarp(), since climbability and in-map-warp
-	 * numbers are stored in the same value in map files. 
-	 * 
-	 * @return the climbability of current spot or the normWarp value at that spot.
-	 *		   0 = not climbable. 1 = climbable. 2 = watery. 
-	 * 		   value greater than or equal to 10 represents
-	 * 		   an in-map-warp, with the number (climbability value - 10).
-	 * 
-	 * 
-	 * in-map-warp takes first priority, then jump climbable, 
-	 * then ladder climbable, then water, then cantclimb.
-	 * 
+	 * Called for each key press or release that the sGamePanel
+	 * put in the input queue, at the start of the tick after it 
+	 * happened. The key is added to or removed from the keys 
+	 * being held down, which are passed on to the simulation, 
+	 * which moves the player.
+	 * The shift key also prints some debug information.
+	 * @param key which key, as an SInputQueue key
+	 * @param pressed true for a press, false for a release
+	 * @param when when the key was pressed or released, from System.nanoTime()
 	 */
-	public int checkClimb(){
-		/*
-		 * 
-		 * These work by checking the climbability in lines forming a box
-		 * on each side of the player. If any side has something climbable,
-		 * then the player can climb. Different types of climbability
-		 * take priority over others (for instance if you can climb, there
-		 * is no need to sink in water). Look at the main comment for this
-		 * method to see priority order.
-		 * 
-		 * The top of the climbable range on the character is slightly above its
-		 * arms (because it has short arms, and you can't climb something with
-		 * your head).
-		 * 
-		 * note: anywhere that -11 apppears near a sChar.getY() value, it is used 
-		 * to put the top bound of climb sensing at the arm height of the player
-		 * 
-		 * To see the climbability box, go to the SGamePanel class and set the 
-		 * boolean field showHitBox to true before starting the game. The red 
-		 * dot in the middle of the character is one pixel below the top of
-		 * the climbability range.
-		 * 
-		 */
-		int priority = 0;
-		int climb;
-		int i;
-		//left
-		i = downCollisionOffset;
-		while(i >= -11){ //upCollisionOffset){ 
-			climb = sMap.getClimb(sChar.getX() + leftCollisionOffset, sChar.getY() + i);
-			if (climb >= 10) {
-				priority = climb;
-			} else if(climb == 3 && (priority == 0 || priority == 2 || priority == 1)){
-				priority = 3;
-			} else if(climb == 1 && (priority == 0 || priority == 2)){
-				priority = 1;
-			} else if (climb == 2 && priority == 0){
-				priority = 2;
-			}
-			i--;
-		}
-		//right
-		i = downCollisionOffset;
-		while(i >= -11){ //upCollisionOffset){
-			climb = sMap.getClimb(sChar.getX() + rightCollisionOffset, sChar.getY() + i);
-			if (climb >= 10) {
-				priority = climb;
-			} else if(climb == 3 && (priority == 0 || priority == 2 || priority == 1)){
-				priority = 3;
-			} else if(climb == 1 && (priority == 0 || priority == 2)){
-				priority = 1;
-			} else if (climb == 2 && priority == 0){
-				priority = 2;
-			}
-			i--;
-		}
-		//up
-		i = leftCollisionOffset;
-		while(i <= rightCollisionOffset){
-			climb = sMap.getClimb(sChar.getX() + i, sChar.getY() + -11); //upCollisionOffset);
-			if (climb >= 10) {
-				priority = climb;
-			} else if(climb == 3 && (priority == 0 || priority == 2 || priority == 1)){
-				priority = 3;
-			} else if(climb == 1 && (priority == 0 || priority == 2)){
-				priority = 1;
-			} else if (climb == 2 && priority == 0){
-				priority = 2;
-			}
-			i++;
-		}
-		//down
-		i = leftCollisionOffset;
-		while(i <= rightCollisionOffset){
-			climb = sMap.getClimb(sChar.getX() + i, sChar.getY() + downCollisionOffset);
-			//climb = sMap.getClimb(sChar.getX() + i, sChar.getY() + downCollisionOffset + 1); //check the spot below player. this makes you unable to jump on ladder climbable and water
-			if (climb >= 10) {
-				priority = climb;
-			} else if(climb == 3 && (priority == 0 || priority == 2 || priority == 1)){
-				priority = 3;
-			} else if(climb == 1 && (priority == 0 || priority == 2)){
-				priority = 1;
-			} else if (climb == 2 && priority == 0){
-				priority = 2;
-			}
-			i++;
+	@Override
+	public void keyEvent(int key, boolean pressed, long when) {
+		if (key == SInputQueue.KEY_SHIFT && pressed){ //shift key was pressed
+			//debug function: print how well the map cache is doing
+			System.out.println(mapCache);
+			System.out.println(prefetcher);
+			System.out.println(input);
+			System.out.println(sPanel.getRenderStats());
 		}
-
-		if (priority >= 10){
-			normWarp(priority - 10);
+		if (pressed){
+			keys |= 1 << key;
+			pressedSinceLastTick |= 1 << key;
+		} else {
+			keys &= ~(1 << key);
 		}
-
-		return priority;
-	}
-
-
-	/**
-	 * change the player's x position, then update it 
-	 * in all classes that need to know it has changed.
-	 * @param newX the new x position for the player, as an int
-	 */
-	public void setCharX(int newX){
-		sChar.setX(newX);
-		refreshChar();
-	}
-
-	/**
-	 * change the player's x position, then update it 
-	 * in all classes that need to know it has changed.
-	 * @param newY the new y position for the player, as an int
-	 */
-	public void setCharY(int newY){
-		sChar.setY(newY);
-		refreshChar();
 	}
 
 	/**
-	 * change the player's step variable, then update it 
-	 * in all classes that need to know it has changed.
-	 * @param newStep the new step value, as an int
+	 * Called by the simulation just before it changes maps.
+	 * @param from the number of the map being left
+	 * @param to the number of the map being changed to
 	 */
-	public void setStep(int newStep){
-		sChar.setStep(newStep);
-		refreshChar();
-	}
-
-	/**
-	 * Perform an in-map warp, or "normal warp", which can be placed
-	 * anywhere in the map.
-	 * Normal warps specify which map they lead to, and at what x and y 
-	 * positions. This method reads those values one at a time from
-	 * warpList[][] within the SMap class, then makes appropriate changes
-	 * to the game to warp the player to the specified destination.
-	 * @param warpNumber
-	 */
-	public void normWarp(int warpNumber){
-		int newMap = sMap.getNormWarpValue(warpNumber, 0);
-		int newX = sMap.getNormWarpValue(warpNumber, 1);
-		int newY = sMap.getNormWarpValue(warpNumber, 2);
-		changeMap(newMap);
-		setCharX(newX);
-		setCharY(newY);
-		if(normWarpResetsGravity){
-			resetGravity();
-		}
-		checkFall();
+	@Override
+	public void mapChanging(int from, int to){
+		prefetcher.recordWarp(from, to);
 	}
 
 	/**
-	 * this method works by checking collision at every pixel in a 
-	 * straight line on the specified side. All of the lines form
-	 * a line around the character. To see the collision box, 
-	 * go to the SGamePanel class and set the boolean field 
-	 * showHitBox to true before starting the game.
-	 * If the player moves left, it is necessary to check 
-	 * left collision, etc. 
-	 * @param side: char representing which side to check ('l' left, 'r' right, 'u' up, 'd' down)
-	 * @param x: the x value to check
-	 * @param y: the y value to check
-	 * @return boolean: true if the player can go there, false if they can't
+	 * Called by the simulation whenever it changes maps, including
+	 * for the first map. Starts loading the maps next to the new map,
+	 * and keeps it to give to the panel at the next render, since the
+	 * panel can only be changed on the event thread.
+	 * @param newMap the new current map
 	 */
-	public boolean checkCollision(char side, int x, int y){
-		int i = 0;
-		if(side == 'l'){
-			//System.out.println("left");
-			i = downCollisionOffset;
-			while(i >= upCollisionOffset){
-				if (!sMap.getCollision(x + leftCollisionOffset + 1, y + i)){
-					return false;
-				}
-				i--;
-			}
-		} else if (side == 'r'){
-			//System.out.println("right");
-			i = downCollisionOffset;
-			while(i >= upCollisionOffset){
-				if (!sMap.getCollision(x + rightCollisionOffset - 1, y + i)){
-					return false;
-				}
-				i--;
-			}
-		} else if (side == 'u'){
-			//System.out.println("up");
-			i = leftCollisionOffset + 1;
-			while(i <= rightCollisionOffset - 1){
-				if (!(sMap.getCollision(x + i, y + upCollisionOffset - 1))){
-					return false;
-				}
-				i++;
-			}
-		} else if (side == 'd'){
-			//System.out.println("down");
-			i = leftCollisionOffset + 1;
-			while(i <= rightCollisionOffset - 1){
-				if (!(sMap.getCollision(x + i, y + downCollisionOffset + 1))){
-					return false;
-				}
-				i++;
-			}
+	@Override
+	public void mapChanged(SMap newMap){
+		warpedThisTick = true;
+		if (prefetchMaps){
+			prefetcher.prefetchNeighbors(newMap);
 		}
-		return true;
+		mapToShow = newMap;
 	}
 
 	/**
-	 * this is here to improve readability of the code, so that it is easy to see when 
-	 * we are checking whether the character is on the ground or not. Calling isOnGround
-	 * is a lot easier to remember and read than a call to and negation of checkCollision.
-	 * @param x
-	 * @param y
-	 * @return
+	 * Give the panel a new map to draw. Called on the event thread, while
+	 * holding the draw lock.
+	 * @param newMap the map to draw
 	 */
-	public boolean isOnGround(int x, int y){
-		return !checkCollision('d', x, y);
-	}
-
-	/**
-	 * When the player hits the ground, something climbable, or water, this is called.
-	 * Resets necessary values so that fall acceleration, etc. is reset for the next 
-	 * fall.
-	 */
-	public void resetGravity(){
-		gravityStart = GRAVITY_INITIAL_SPEED;
-		fastGravityStart = FAST_GRAVITY_INITIAL_SPEED;
-		accelCount = 0;
+	private void showMap(SMap newMap){
+		//initialize sPanel with sMap data
+		//shape data
+		sPanel.setShapeTable(newMap.getShapeTable());
+		//game size
+		sPanel.setFrameHeight(newMap.getFrameHeight());
+		sPanel.setFrameWidth(newMap.getFrameWidth());
+		//initialize panel
+		sPanel.refreshSize();
 	}
 
-	//	/**
-	//	 * This is meant to find the current position of a certain side of the player,
-	//	 * taking necessary calibration into account. It is currently not used, but may 
-	//	 * be useful later.
-	//	 * @param edge: char, which edge to check. 'l' left, 'r' right, 'u' up, 'd' down.
-	//	 * @return int: the position of that side (x position for left and right, y position for top and bottom)
-	//	 */
-	//	public int getCharPosition(char edge){
-	//		int position = 0;
-	//		if (edge == 'l'){
-	//			position = sChar.getX() + leftCollisionOffset;
-	//		} if (edge == 'r'){
-	//			position = sChar.getX() + rightCollisionOffset;
-	//		} if (edge == 'u'){
-	//			position = sChar.getY() + upCollisionOffset;
-	//		} if (edge == 'd'){
-	//			position = sChar.getY() + downCollisionOffset;
-	//		}
-	//		return position;
-	//	}
-
 	/**
 	 * Instantiate the SGame class.
 	 * @param args: int indicating which map number to start the game on (this parameter is not currently implented)
@@ -1061,4 +237,3 @@ public class SGame implements Observer {
 	}
 
 }
-
@@ -0,0 +1,149 @@
+import java.lang.reflect.InvocationTargetException;
+import javax.swing.SwingUtilities;
+
+/**
+ * The game loop, which drives the game with a fixed timestep.
+ * 
+ * The loop runs on its own thread. Once per frame, it measures how much 
+ * real time has passed and adds it to an accumulator. The game is then 
+ * ticked once for every whole TICK_MILLIS in the accumulator, so that the
+ * game always advances in the same fixed steps no matter how fast or slow
+ * frames are coming. Whatever time is left over (less than one tick) is 
+ * passed to render() as a fraction of a tick, so that drawing can be
+ * smoothed between the last two ticks.
+ * 
+ * The ticks are run on the loop thread itself, so that ticking never holds
+ * up the Swing event thread, which senses key presses. Only the render is
+ * run on the event thread, since that is where drawing happens. The loop
+ * waits for each render to finish before it ticks again, so the game 
+ * state is never touched by both threads at once.
+ * 
+ * @author Adam Cogen
+ *
+ */
+public class SGameLoop implements Runnable {
+	public static final int TICK_MILLIS = 10; //how much game time passes in each tick
+	private static final long TICK_NANOS = TICK_MILLIS * 1000000L; //TICK_MILLIS in nanoseconds
+	public static final int TARGET_FPS = 60; //how many frames per second the loop aims for, unless a different rate is given
+	private long frameNanos; //how long each frame should take, in nanoseconds
+	private static final long MAX_FRAME_NANOS = 250000000L; //the most time one frame can add to the accumulator. after a long stall, the game slows down rather than running hundreds of ticks at once
+	private Steppable game; //the game to tick and render
+	private Thread thread; //the loop thread
+	private volatile boolean running; //should the loop keep going?
+	private long accumulator; //real time, in nanoseconds, that has passed but has not been ticked yet. only used on the loop thread
+	private volatile long tickCount; //how many ticks have happened. only changed on the loop thread
+
+	/**
+	 * Something that the game loop can drive.
+	 */
+	public interface Steppable {
+		/**
+		 * Advance the game by exactly one tick (TICK_MILLIS of game time).
+		 * Called on the loop thread.
+		 */
+		void tick();
+
+		/**
+		 * Draw the game. Called on the Swing event thread, while the loop
+		 * thread waits.
+		 * @param alpha how far, from 0 up to (not including) 1, real time has 
+		 * gotten past the last tick towards the next one
+		 */
+		void render(double alpha);
+	}
+
+	/**
+	 * Create a game loop. It does not run until start() is called.
+	 * @param game the game to tick and render
+	 */
+	public SGameLoop(Steppable game){
+		this(game, TARGET_FPS);
+	}
+
+	/**
+	 * Create a game loop that aims for a different frame rate. It does not
+	 * run until start() is called.
+	 * @param game the game to tick and render
+	 * @param targetFps how many frames per second the loop aims for. ticks still happen every TICK_MILLIS
+	 */
+	public SGameLoop(Steppable game, int targetFps){
+		this.game = game;
+		frameNanos = 1000000000L / Math.max(1, targetFps);
+	}
+
+	/**
+	 * Start the loop thread.
+	 */
+	public void start(){
+		if (running){
+			return;
+		}
+		running = true;
+		thread = new Thread(this, "game loop");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop the loop thread after the frame it is on.
+	 */
+	public void stop(){
+		running = false;
+		if (thread != null){
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * The loop itself. See the comment at the top of this class.
+	 */
+	@Override
+	public void run(){
+		long lastTime = System.nanoTime();
+		while (running){
+			long frameStart = System.nanoTime();
+			long elapsed = Math.min(frameStart - lastTime, MAX_FRAME_NANOS);
+			lastTime = frameStart;
+			try {
+				double alpha = tick(elapsed);
+				SwingUtilities.invokeAndWait(() -> game.render(alpha));
+			} catch (InterruptedException ie){
+				return;
+			} catch (InvocationTargetException ite){
+				throw new RuntimeException("the game failed during a frame", ite.getCause());
+			}
+			long sleepNanos = frameStart + frameNanos - System.nanoTime();
+			if (sleepNanos > 0){
+				try {
+					Thread.sleep(sleepNanos / 1000000L, (int) (sleepNanos % 1000000L));
+				} catch (InterruptedException ie){
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run as many ticks as fit in the accumulated time, for one frame.
+	 * Called on the loop thread.
+	 * @param elapsed how much real time has passed since the last frame, in nanoseconds
+	 * @return double: how far real time has gotten past the last tick, as passed to render()
+	 */
+	private double tick(long elapsed){
+		accumulator += elapsed;
+		while (accumulator >= TICK_NANOS){
+			game.tick();
+			accumulator -= TICK_NANOS;
+			tickCount++;
+		}
+		return (double) accumulator / TICK_NANOS;
+	}
+
+	/**
+	 * Return how many ticks have happened since the loop started.
+	 * @return long: the tick count
+	 */
+	public long getTickCount(){
+		return tickCount;
+	}
+}
@@ -1,11 +1,13 @@
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 import java.awt.event.KeyListener;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.util.Observable;
 import java.util.Scanner;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
@@ -15,69 +17,95 @@ import javax.swing.JPanel;
  * The actual frame that the game is played in.
  * Also detects key presses (for moving the player).
  * 
+ * The frame shows a view of the map that is never bigger than VIEW_WIDTH 
+ * by VIEW_HEIGHT. Maps that fit are shown whole, as they always have been.
+ * On bigger maps, the view is a camera that follows the player around,
+ * and only the shapes that are in view are drawn, so a huge map costs
+ * about the same to draw as a small one.
+ * 
+ * The game can be drawn in one of two ways. Normally, it is drawn by 
+ * Swing, on the event thread, whenever refreshImage() asks Swing to 
+ * repaint it. With active rendering, it is drawn onto a Canvas instead, 
+ * by an SActiveRenderer on its own thread, as soon as refreshImage() says
+ * a frame is ready. Either way, the same DrawPanel code draws each frame.
+ * Anything that changes what is drawn must hold getDrawLock() while it
+ * does, so that the render thread never draws a frame that is only half
+ * changed.
+ * 
  * @author Adam Cogen
  *
  */
 public class SGamePanel extends JFrame {
 	private int frameWidth; //the width of the game frame
 	private int frameHeight; //the height of the game frame
+	private static final int VIEW_WIDTH = 640; //setting. the widest the view of the map can be. on wider maps, the view scrolls to follow the player
+	private static final int VIEW_HEIGHT = 480; //setting. the tallest the view of the map can be. on taller maps, the view scrolls to follow the player
+	private int viewWidth; //the width of the view of the map: the width of the map, or VIEW_WIDTH if the map is wider
+	private int viewHeight; //the height of the view of the map: the height of the map, or VIEW_HEIGHT if the map is taller
+	private int cameraX; //the x position on the map of the left side of the view
+	private int cameraY; //the y position on the map of the top of the view
+	private SRenderIndex renderIndex; //finds the shapes that are in view, on maps that are bigger than the view, and works out the color-sorted draw order. null until it is needed
+	private boolean sortDrawsByColor = true; //setting. are shapes drawn grouped by color, wherever that looks the same as drawing them in file order (see SRenderIndex.getDrawOrder())? cuts down on color changes while drawing
 	private DrawPanel panel; //DrawPanel is an internal class that extends JPanel. The game is drawn here. It is near the bottom of this class.
+	private Canvas canvas; //with active rendering, the game is shown on this instead of on panel. null otherwise
+	private SActiveRenderer renderer; //with active rendering, draws the game onto canvas on its own thread. null otherwise
+	private final Object drawLock = new Object(); //held while anything that is drawn changes, and while the render thread draws
 	private String fileName; //unused field for a String file name
-	private int[][] shapeData; //contains the shape data that will be used to draw the map
+	private SShapeTable shapeTable; //contains the shape data that will be used to draw the map
 	private int charX; //the x position of the character, for drawing purposes
 	private int charY; //the y position of the character, for drawing purposes
-	private int shapeCount; //the shape count, used to initialize the shapeData array
+	private BufferedImage behindLayer; //all of the shapes that are drawn behind the character, drawn ahead of time
+	private BufferedImage frontLayer; //all of the shapes that are drawn in front of the character, drawn ahead of time
+	private boolean layersStale = true; //do behindLayer and frontLayer need to be drawn again, because the map has changed?
+	private boolean fullRepaintNeeded = true; //does the next refreshImage() need to repaint the whole frame, instead of just around the character?
+	private Rectangle paintedCharBounds; //the area the character covered the last time refreshImage() was called
 	private int step; //which step of the walking animation is the character on? for drawing purposes
-	/*
-	 * the hitbox is a red box that indicates the collision area of the player. the center dot marks the 
-	 * arm line, which is 1 pixel below the top of the climbability area. the bottom of the climbability 
-	 * area is the same as the collision area. this is used for debugging purposes, and to program 
-	 * collision detection.
+	private SCharSprites charSprites; //the pictures of the character, one per step of the walking animation. null until the character is first drawn
+	private boolean showHitBox = false; //turn hitbox on or off for debugging (see SMapRenderer.drawHitBox())
+
+	/**
+	 * 
+	 * Instantiates the SGamePanel class and initializes necessary fields.
+	 * The game is drawn by Swing.
+	 * 
+	 * @param input The queue that key presses and releases will be passed into.
+	 * The game drains this queue once per tick.
 	 */
-	private boolean showHitBox = false; //turn hitbox on or off for debugging (see comment directly above this one)
-	private int leftCollisionOffset = 1; //used to calibrate where the left side of the player is located
-	private int rightCollisionOffset = 8; //used to calibrate where the right side of the player is located
-	private int upCollisionOffset = -22; //used to calibrate where the top of the player is located
-	private int downCollisionOffset = -1; //used to calibrate where the bottom of the player is located
+	public SGamePanel(SInputQueue input){
+		this(input, 0);
+	}
 
 	/**
 	 * 
 	 * Instantiates the SGamePanel class and initializes necessary fields.
 	 * 
-	 * @param game The SGame object which this SGamePanel is instantiated by.
-	 * This will be passed to the internal observable KeyPressNotifier class, 
-	 * where it will be added as an observer.
+	 * @param input The queue that key presses and releases will be passed into.
+	 * The game drains this queue once per tick.
+	 * @param activeFps the most frames per second to draw with active rendering,
+	 * or 0 to have the game drawn by Swing instead
 	 */
-	public SGamePanel(SGame game){
+	public SGamePanel(SInputQueue input, int activeFps){
 		panel = new DrawPanel();
+		if (activeFps > 0){
+			canvas = new Canvas();
+			canvas.setFocusable(false); //so that the frame keeps the focus, and keeps getting the key presses
+			renderer = new SActiveRenderer(canvas, g -> panel.paintComponent(g), drawLock, activeFps);
+			renderer.start();
+		}
 		frameHeight = 0;
 		frameWidth = 0;
-		shapeCount = 0;
 		step = 0;
 		this.setResizable(false);
 		this.setVisible(true);
 		this.setDefaultCloseOperation(EXIT_ON_CLOSE);
 
 		/*
-		 * Instantiate the KeyPressNotifier internal class, 
-		 * which will be observable by the SGame, which this 
-		 * SGamePanel object is instantiated by. 
-		 * The KeyPressNotifier will be used to notify the game
-		 * when a key has been pressed, since only the SGamePanel
-		 * has the ability to detect key presses (since it extends 
-		 * JFrame).
-		 */
-
-		KeyPressNotifier pressNotifier = new KeyPressNotifier();
-
-		/*
-		 * Pass in the SGame that this SGamePanel is instantiated by,
-		 * and has as a field.
-		 * This will act as an observer. 
+		 * Key presses are passed to the game through the input queue,
+		 * since only the SGamePanel has the ability to detect key 
+		 * presses (since it extends JFrame). Putting a key into the 
+		 * queue never waits on the game.
 		 */
 
-		pressNotifier.setGame(game);
-
 		/**
 		 * Handles key presses within the game.
 		 * 
@@ -94,11 +122,9 @@ public class SGamePanel extends JFrame {
 				//nothin	
 			}
 			/**
-			 * Handles all key presses, and calls a method within
-			 * the KeyPressNotifier class (internal class within the 
-			 * SGamePanel) that will then notify the SGame that a key
-			 * has been pressed. From there, the SGame will perform 
-			 * the appropriate functions.
+			 * Handles all key presses, and puts them into the input
+			 * queue. The next time the game ticks, it will take them
+			 * out and perform the appropriate functions.
 			 * @param e the key that was pressed (usually one of the arrow keys, except for a possible debug function on the shift key)
 			 */
 			@Override
@@ -106,53 +132,52 @@ public class SGamePanel extends JFrame {
 				switch (e.getKeyCode()) {
 				case KeyEvent.VK_LEFT: //left key pressed
 					//moveChar("left");
-					pressNotifier.keyPressChange('l');
+					input.keyPressed(SInputQueue.KEY_LEFT);
 					break;
 				case KeyEvent.VK_UP: //up key pressed
 					//moveChar("up");
-					pressNotifier.keyPressChange('u');
+					input.keyPressed(SInputQueue.KEY_UP);
 					break;
 				case KeyEvent.VK_RIGHT: //right key pressed
 					//moveChar("right");
-					pressNotifier.keyPressChange('r');
+					input.keyPressed(SInputQueue.KEY_RIGHT);
 					break;
 				case KeyEvent.VK_DOWN: // down key pressed
 					//moveChar("down");
-					pressNotifier.keyPressChange('d');
+					input.keyPressed(SInputQueue.KEY_DOWN);
 					break;
 				case KeyEvent.VK_SHIFT: // shift key pressed
 					//moveChar("shift");
-					pressNotifier.keyPressChange('s');
+					input.keyPressed(SInputQueue.KEY_SHIFT);
 					break;
 				}
 			}
 			/**
-			 * This is not used for anything yet, but just in case
-			 * it is eventually useful, the KeyPressNotifier class 
-			 * also notifies the SGame about key releases. 
+			 * Handles all key releases, and puts them into the input
+			 * queue, the same as key presses.
 			 */
 			@Override
 			public void keyReleased(KeyEvent e) {
 				switch (e.getKeyCode()) {
 				case KeyEvent.VK_LEFT: //left key pressed
 					//moveChar("left");
-					pressNotifier.keyPressChange('0');
+					input.keyReleased(SInputQueue.KEY_LEFT);
 					break;
 				case KeyEvent.VK_UP: //up key pressed
 					//moveChar("up");
-					pressNotifier.keyPressChange('1');
+					input.keyReleased(SInputQueue.KEY_UP);
 					break;
 				case KeyEvent.VK_RIGHT: //right key pressed
 					//moveChar("right");
-					pressNotifier.keyPressChange('2');
+					input.keyReleased(SInputQueue.KEY_RIGHT);
 					break;
 				case KeyEvent.VK_DOWN: // down key pressed
 					//moveChar("down");
-					pressNotifier.keyPressChange('3');
+					input.keyReleased(SInputQueue.KEY_DOWN);
 					break;
 				case KeyEvent.VK_SHIFT: // shift key pressed
 					//moveChar("shift");
-					pressNotifier.keyPressChange('4');
+					input.keyReleased(SInputQueue.KEY_SHIFT);
 					break;
 				}
 			}
@@ -160,15 +185,6 @@ public class SGamePanel extends JFrame {
 		this.addKeyListener(new KeyPress());
 	}
 
-	/**
-	 * read a number from the shape array.
-	 * @param rectangle the number of the shape to read
-	 * @param value the index of the value to read, 0-8
-	 * @return the value at the specified rectangle
-	 */
-	public int readNum(int rectangle, int value){
-		return shapeData[rectangle][value];
-	}
 
 	/**
 	 * DrawPanel extends JPanel.
@@ -183,102 +199,142 @@ public class SGamePanel extends JFrame {
 	 */
 	class DrawPanel extends JPanel{
 		public void paintComponent(Graphics g){
-			int red = 0;
-			int green = 0;
-			int blue = 0;
+			if (isScrolling()){
+				paintView(g);
+				return;
+			}
+			if (layersStale){
+				bakeLayers();
+			}
 
-			//draw all rectangles that go behind player, and no-collision ovals that go behind player
-			for (int i = 0; i < shapeCount; i++){
+			//draw all shapes that go behind player
+			g.drawImage(behindLayer, 0, 0, null);
 
-				/*
-				 * read each color from the file, and call a method that 
-				 * corrects any colors that are outside of the range 0 to 255
-				 */
-				red = fixColorRange(readNum(i, 6));
-				green = fixColorRange(green = readNum(i, 7));
-				blue = fixColorRange(readNum(i, 8));
+			drawCharacter(g);
 
-				//all behind rectangles
-				if(readNum(i, 4) != 2 && readNum(i, 4) != 3 && readNum(i, 4) != 4 && readNum(i, 4) != 5){
-					g.setColor(new Color(red, green, blue));
-					g.fillRect(readNum(i, 0), readNum(i, 1), readNum(i, 2), readNum(i, 3));
-				}
-				//draw no-collision behind ovals
-				if(readNum(i,4) == 3){
-					g.setColor(new Color(red, green, blue));
-					g.fillOval(readNum(i, 0), readNum(i, 1), readNum(i, 2), readNum(i, 3));
-				}
-			}
+			//draw all shapes that go in front of the character
+			g.drawImage(frontLayer, 0, 0, null);
+		}
 
-			//draw the character
-			g.setColor(Color.black);
-			if (step == 0){
-				g.drawString("H", charX, charY);
-				g.drawString("- -", charX - 5, charY - 6);
-			} else {
-				g.drawString("X", charX, charY);
-				g.drawString("~ ~", charX - 5, charY - 6);
+		/**
+		 * Paint the view of a map that is bigger than the view. The map is 
+		 * too big to draw ahead of time, so only the shapes that are in view
+		 * are found (see SRenderIndex) and drawn, every frame. When only part
+		 * of the view is being repainted (such as around the character, when
+		 * the camera has not moved), only the shapes in that part are drawn.
+		 * @param g the graphics to draw with
+		 */
+		private void paintView(Graphics g){
+			SRenderIndex index = getRenderIndex();
+			//the layers drawn ahead of time are not used, so don't hold on to them
+			behindLayer = null;
+			frontLayer = null;
+			layersStale = true;
+			//everything is drawn at its position on the map, and shifted so that the camera is at the top left
+			g.translate(-cameraX, -cameraY);
+			Rectangle area = new Rectangle(cameraX, cameraY, viewWidth, viewHeight);
+			Rectangle clip = g.getClipBounds(); //the part being repainted, also shifted onto the map
+			if (clip != null){
+				area = area.intersection(clip);
+			}
+			g.setColor(getBackground());
+			g.fillRect(area.x, area.y, area.width, area.height);
+			int[] visible = index == null ? new int[0] : index.getShapes(area.x, area.y, area.width, area.height);
+			if (sortDrawsByColor && index != null){
+				visible = index.toDrawOrder(visible);
 			}
-			g.drawString("O", charX, charY - 5);
-			g.drawString("o", charX + 2, charY - 15);
+			drawShapes(g, false, visible);
+			drawCharacter(g);
+			drawShapes(g, true, visible);
+			g.translate(cameraX, cameraY);
+		}
+
+		/**
+		 * Draw the character, and the hitbox if it is turned on.
+		 * @param g the graphics to draw with
+		 */
+		private void drawCharacter(Graphics g){
+			getCharSprites().draw(g, step, charX, charY);
 
 			//draw the hitbox if it is turned on
 			if (showHitBox){
-				g.setColor(Color.red);
-				//left
-				g.drawLine(charX + leftCollisionOffset, charY + downCollisionOffset, charX +leftCollisionOffset, charY + upCollisionOffset);
-				//right
-				g.drawLine(charX + rightCollisionOffset, charY + downCollisionOffset, charX + rightCollisionOffset, charY + upCollisionOffset);
-				//up
-				g.drawLine(charX + leftCollisionOffset, charY + upCollisionOffset, charX + rightCollisionOffset, charY + upCollisionOffset);
-				//down
-				g.drawLine(charX + leftCollisionOffset, charY + downCollisionOffset, charX + rightCollisionOffset, charY + downCollisionOffset);
-				//center dot (at arm line)
-				g.drawLine(charX + 4, charY + -10, charX + 5, charY + -10);
+				SMapRenderer.drawHitBox(g, charX, charY);
 			}
+		}
 
-			//draw no-collision rectangles and ovals that go in front of the character
-			for (int i = 0; i < shapeCount; i++){
-
-				/*
-				 * read each color from the file, and call a method that 
-				 * corrects any colors that are outside of the range 0 to 255
-				 * (no colors should be outside of that range, but if for some
-				 * reason they are, the game will correct them and will still 
-				 * run).
-				 */
-				red = fixColorRange(readNum(i, 6));
-				green = fixColorRange(green = readNum(i, 7));
-				blue = fixColorRange(readNum(i, 8));
+		/**
+		 * Draw the shapes of the map into two images, one for the shapes that go
+		 * behind the character and one for the shapes that go in front of it.
+		 * Maps never change while they are being played, so this only has to be 
+		 * done once each time the map changes. After that, each frame just draws
+		 * the two images with the character in between, no matter how many shapes
+		 * the map has.
+		 * 
+		 * The behind image is filled with the panel's background color first, so 
+		 * that any part of the map that no shape covers is cleared each frame. 
+		 * The front image is transparent wherever there is no shape.
+		 */
+		private void bakeLayers(){
+			int width = Math.max(1, frameWidth);
+			int height = Math.max(1, frameHeight);
+			behindLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			frontLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			Graphics behind = behindLayer.getGraphics();
+			behind.setColor(getBackground());
+			behind.fillRect(0, 0, width, height);
+			drawShapes(behind, false);
+			behind.dispose();
+			Graphics front = frontLayer.getGraphics();
+			drawShapes(front, true);
+			front.dispose();
+			layersStale = false;
+		}
 
-				//draw no-collision, in-front-of-character rectangles
-				if(readNum(i, 4) == 2){
-					g.setColor(new Color(red, green, blue));
-					g.fillRect(readNum(i, 0), readNum(i, 1), readNum(i, 2), readNum(i, 3));
-				}
-				//draw no-collision, in-front-of-character ovals
-				if(readNum(i,4) == 4){
-					g.setColor(new Color(red, green, blue));
-					g.fillOval(readNum(i, 0), readNum(i, 1), readNum(i, 2), readNum(i, 3));
-				}
+		/**
+		 * Return the render index for the current map, building it if it has 
+		 * not been built yet.
+		 * @return SRenderIndex: the render index, or null if there is no map
+		 */
+		private SRenderIndex getRenderIndex(){
+			if (renderIndex == null && shapeTable != null){
+				renderIndex = new SRenderIndex(shapeTable);
 			}
+			return renderIndex;
 		}
-		
+
 		/**
-		 * Correct any values that are not within the range 0 to 255, inclusive.
-		 * Values less than 0 will become 0, values greater than 255 will become 255.
-		 * Meant to make sure that color RGB values are valid.
-		 * 
-		 * @param value The original value as an int
-		 * @return int: the value adjusted so that 0 <= value <= 255
+		 * Draw one layer of the map's shapes, in the order they appear in the map file,
+		 * or grouped by color if sortDrawsByColor is turned on.
+		 * @param g the graphics to draw with
+		 * @param inFront true to draw the shapes that go in front of the character 
+		 * (no-collision rectangles and ovals marked 2 and 4), false to draw the shapes that
+		 * go behind it (rectangles marked 0 and 1, and no-collision ovals marked 3)
 		 */
-		public int fixColorRange(int value){
-			if (value > 255){
-				value = 255;
-			} else if (value < 0){
-				value = 0;
+		private void drawShapes(Graphics g, boolean inFront){
+			if (shapeTable == null){
+				return;
 			}
-			return value;
+			if (sortDrawsByColor){
+				drawShapes(g, inFront, getRenderIndex().getDrawOrder());
+				return;
+			}
+			int[] all = new int[shapeTable.getCount()];
+			for (int i = 0; i < all.length; i++){
+				all[i] = i;
+			}
+			drawShapes(g, inFront, all);
+		}
+
+		/**
+		 * Draw some of one layer of the map's shapes.
+		 * @param g the graphics to draw with
+		 * @param inFront true to draw the shapes that go in front of the character, 
+		 * false to draw the shapes that go behind it
+		 * @param shapes the numbers of the shapes to draw, in file order or in draw order
+		 * (see SRenderIndex.getDrawOrder()). shapes that are not in the layer are skipped
+		 */
+		private void drawShapes(Graphics g, boolean inFront, int[] shapes){
+			SMapRenderer.drawLayer(g, shapeTable, inFront, shapes);
 		}
 	}
 	
@@ -289,20 +345,33 @@ public class SGamePanel extends JFrame {
 	 * size than the map before it.
 	 */
 	public void refreshSize(){
-		panel.setPreferredSize(new Dimension(frameWidth, frameHeight));
-		this.add(panel);
-		this.pack();
+		if (canvas != null){
+			synchronized (drawLock){
+				canvas.setPreferredSize(new Dimension(viewWidth, viewHeight));
+				this.add(canvas);
+				this.pack();
+				renderer.createBuffers(); //the buffers have to match the canvas's new size
+			}
+		} else {
+			panel.setPreferredSize(new Dimension(viewWidth, viewHeight));
+			this.add(panel);
+			this.pack();
+		}
+		fullRepaintNeeded = true;
 	}
 	
 	/**
-	 * Set the shape data for the panel, which holds
+	 * Set the shape table for the panel, which holds
 	 * all information about shapes to be rendered on
 	 * the map. The shapes will be drawn within the
 	 * SGamePanel class. 
-	 * @param data int[][]: the shape data for the current map
+	 * @param table SShapeTable: the shapes of the current map
 	 */
-	public void setShapeData(int[][] data){
-		shapeData = data;
+	public void setShapeTable(SShapeTable table){
+		shapeTable = table;
+		renderIndex = null;
+		layersStale = true;
+		fullRepaintNeeded = true;
 	}
 	
 	/**
@@ -314,6 +383,9 @@ public class SGamePanel extends JFrame {
 	 */
 	public void setFrameHeight(int height){
 		frameHeight = height;
+		viewHeight = Math.min(height, VIEW_HEIGHT);
+		layersStale = true;
+		fullRepaintNeeded = true;
 	}
 	
 	/**
@@ -325,6 +397,9 @@ public class SGamePanel extends JFrame {
 	 */
 	public void setFrameWidth(int width){
 		frameWidth = width;
+		viewWidth = Math.min(width, VIEW_WIDTH);
+		layersStale = true;
+		fullRepaintNeeded = true;
 	}
 	
 	/**
@@ -332,11 +407,101 @@ public class SGamePanel extends JFrame {
 	 * This will be necessary after changes in position of the player,
 	 * or when drawing new shapes on the map (when initializing game
 	 * or changing maps).
+	 * 
+	 * When only the character has changed, only the area it was last drawn
+	 * in and the area it is now in are repainted, since nothing else on the
+	 * screen can have changed. After the map or frame size changes, or the
+	 * camera moves, the whole frame is repainted.
+	 * 
+	 * With active rendering, this just tells the render thread that the
+	 * frame is ready, and it draws the whole frame.
 	 */
 	public void refreshImage(){
-		this.repaint();
+		moveCamera();
+		if (renderer != null){
+			renderer.frameReady();
+			return;
+		}
+		Rectangle bounds = characterBounds();
+		bounds.translate(-cameraX, -cameraY);
+		if (fullRepaintNeeded || paintedCharBounds == null){
+			this.repaint();
+			fullRepaintNeeded = false;
+		} else {
+			panel.repaint(bounds.union(paintedCharBounds));
+		}
+		paintedCharBounds = bounds;
+	}
+
+	/**
+	 * Move the camera so that the character is in the middle of the view,
+	 * without showing anything past the edges of the map. On maps that fit
+	 * in the view, the camera never moves from the top left corner.
+	 */
+	private void moveCamera(){
+		//the middle of the character is about 4 pixels right of and 11 pixels above its position
+		int x = Math.max(0, Math.min(frameWidth - viewWidth, charX + 4 - viewWidth / 2));
+		int y = Math.max(0, Math.min(frameHeight - viewHeight, charY - 11 - viewHeight / 2));
+		if (x != cameraX || y != cameraY){
+			cameraX = x;
+			cameraY = y;
+			fullRepaintNeeded = true;
+		}
+	}
+
+	/**
+	 * Is the map bigger than the view, so that the view has to scroll?
+	 * @return true if the map is wider or taller than the view
+	 */
+	private boolean isScrolling(){
+		return frameWidth > viewWidth || frameHeight > viewHeight;
+	}
+
+	/**
+	 * Return the lock that must be held while changing anything that is 
+	 * drawn (the character, the map, or the frame size), up to and 
+	 * including the call to refreshImage() for that frame. This only matters
+	 * with active rendering, where the game is drawn on another thread, but
+	 * it does no harm otherwise.
+	 * @return Object: the draw lock
+	 */
+	public Object getDrawLock(){
+		return drawLock;
+	}
+
+	/**
+	 * Return a summary of how drawing has been going, for debugging.
+	 * @return String: how many frames have been drawn and dropped, with active rendering
+	 */
+	public String getRenderStats(){
+		return renderer == null ? "drawn by Swing" : renderer.toString();
+	}
+
+	/**
+	 * Work out the area of the map that the character covers at its current 
+	 * position, including the hitbox if it is turned on. This is big enough for
+	 * either step of the walking animation, and has a 1 pixel margin.
+	 * @return the area covered by the character
+	 */
+	public Rectangle characterBounds(){
+		Rectangle area = getCharSprites().getBounds(charX, charY);
+		if (showHitBox){
+			area = area.union(SMapRenderer.getHitBoxBounds(charX, charY));
+		}
+		return new Rectangle(area.x - 1, area.y - 1, area.width + 2, area.height + 2);
 	}
 	
+	/**
+	 * Return the pictures of the character, in black in the panel's font.
+	 * @return SCharSprites: the character's pictures
+	 */
+	private SCharSprites getCharSprites(){
+		if (charSprites == null){
+			charSprites = SCharSprites.get(panel.getFont(), Color.black);
+		}
+		return charSprites;
+	}
+
 	/**
 	 * Set the x position of the character, as it is to be drawn
 	 * @param val int: the character's x position, as it is to be drawn
@@ -353,14 +518,6 @@ public class SGamePanel extends JFrame {
 		charY = val;
 	}
 	
-	/**
-	 * Set the shape count, for shape rendering purposes
-	 * @param val int: the shape count
-	 */
-	public void setShapeCount(int val){
-		shapeCount = val;
-	}
-	
 	/**
 	 * Set which step of the walk animation the player is currently on, for drawing purposes
 	 * @param val int: which step of the walking animation the character is on
@@ -383,70 +540,4 @@ public class SGamePanel extends JFrame {
 	public int getFrameWidth(){
 		return frameWidth;
 	}
-	
-	/**
-	 * Since Java does not support double inheritance and the SGamePanel already extends 
-	 * JFrame, this class extends Observable and notifies the main Game class whenever a
-	 * key is pressed or released.  The direction n represents no direction being pressed,
-	 * u represents up, d represents down, l represents left, and r represents right.
-	 * @author adamcogen
-	 *
-	 */
-	public class KeyPressNotifier extends Observable {
-		
-		private char currentDirection; //what was the most recent key event sent to the KeyPressNotifier?
-		
-		/**
-		 * Initialize the KeyPressNotifier. 'n' represents a key release, so this is an appropriate value
-		 * to initialize the currentDirection field with.
-		 */
-		public KeyPressNotifier(){
-			currentDirection = 'n';
-		}
-		
-		/**
-		 * This is the method that is called when a key press or release happens within the SGamePanel.
-		 * This is where observers of the KeyPressNotifier are notified. This method passes
-		 * information about which key was pressed or released as a parameter to the observer (the SGame
-		 * class), where it can be processed.
-		 * @param char: the direction that was pressed within the SGamePanel. 
-		 */
-		public void keyPressChange(char dir){
-			if (dir == 'l'){ //left arrow pressed
-				currentDirection = 'l';
-			} else if (dir == 'r'){ //right arrow pressed
-				currentDirection = 'r';
-			} else if (dir == 'u'){ //up arrow pressed
-				currentDirection = 'u';
-			} else if (dir == 'd'){ //down arrow pressed
-				currentDirection = 'd';
-			} else if (dir == 's'){ //shift key pressed
-				currentDirection = 's';
-			} else if (dir == 'n'){ //no key pressed, or key released (NOT CURRENTLY IMPLEMENTED)
-				currentDirection = 'n';
-			} else if (dir == '0'){ //left arrow released
-				currentDirection = '0';
-			} else if (dir == '1'){ //up arrow released
-				currentDirection = '1';
-			} else if (dir == '2'){ //right arrow released 
-				currentDirection = '2';
-			} else if (dir == '3'){ //down arrow released
-				currentDirection = '3';
-			} else if (dir == '4'){ //shift key released
-				currentDirection = '4';
-			}
-			setChanged();
-			notifyObservers(currentDirection);
-			//System.out.println("ya");
-		}
-		
-		/**
-		 * Pass in an SGame, which will act as the observer for the KeyPressNotifier.
-		 * @param game The SGame that will act as an observer and will process and act on key presses.
-		 */
-		public void setGame(SGame game){
-			addObserver(game);
-		}
-
-	}
 }
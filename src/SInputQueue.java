@@ -0,0 +1,215 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of key presses and releases, passed from the thread that
+ * senses them (the Swing event thread) to the game loop's thread, which
+ * drains the queue once at the start of every tick.
+ *
+ * The queue is a ring buffer with one producer and one consumer, and
+ * it never locks: the producer only ever moves the tail and the consumer
+ * only ever moves the head, so neither one has to wait for the other.
+ * Sensing a key only ever means writing one event into the buffer,
+ * so it never has to wait for the game.
+ *
+ * Bursts of key repeats are coalesced. A press of a key that is already
+ * held down is not queued at all, since the game already knows the key
+ * is down. A release that is followed by a press of the same key within
+ * one drain (some systems send key repeats as a release and a press
+ * together) is dropped along with that press, since the key never
+ * stayed up for a whole tick.
+ *
+ * Releases are never dropped. A press is only queued if there is still
+ * room left for the release of every key that is down, including the
+ * one being pressed, so a key can never get stuck down because the
+ * queue was full when it was released. When the queue is full, it is
+ * presses that are dropped, and a key whose press was dropped is not
+ * down as far as the game knows, so its release is left out too.
+ *
+ * Each event is stamped with the time it was sensed. The stamps are
+ * passed on to the handler, and the queue keeps track of how long
+ * events waited between being sensed and being drained (see toString()).
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SInputQueue {
+	public static final int KEY_LEFT = 0; //the left arrow key
+	public static final int KEY_UP = 1; //the up arrow key
+	public static final int KEY_RIGHT = 2; //the right arrow key
+	public static final int KEY_DOWN = 3; //the down arrow key
+	public static final int KEY_SHIFT = 4; //the shift key (used for debugging)
+	public static final int DEFAULT_CAPACITY = 256; //how many events fit in the queue by default. at one drain per tick, this is far more than anyone can type
+	private final int[] keys; //the key of each event in the ring
+	private final boolean[] presses; //was each event in the ring a press (true) or a release (false)?
+	private final long[] times; //when each event in the ring happened, from System.nanoTime()
+	private final int mask; //the capacity minus 1, for wrapping positions into the ring
+	private final AtomicLong head = new AtomicLong(); //the position of the next event to drain. only moved by the consumer
+	private final AtomicLong tail = new AtomicLong(); //the position of the next free slot. only moved by the producer
+	private int held; //a bit for each key that the producer has queued a press for but not a release. only used by the producer
+	private volatile long dropped; //how many events did not fit in the queue. only changed by the producer
+	private volatile long repeatsCoalesced; //how many presses of keys that were already down were left out. only changed by the producer
+	private long pairsCoalesced; //how many release and press pairs were left out of drains. only used by the consumer
+	private long eventsDrained; //how many events have been passed to a handler. only used by the consumer
+	private long totalWaitNanos; //how long all of the drained events waited in the queue, added up. only used by the consumer
+	private long maxWaitNanos; //the longest any drained event waited in the queue. only used by the consumer
+
+	/**
+	 * Something that handles the events drained from the queue.
+	 */
+	public interface Handler {
+		/**
+		 * Handle one key press or release.
+		 * @param key which key: KEY_LEFT, KEY_UP, KEY_RIGHT, KEY_DOWN or KEY_SHIFT
+		 * @param pressed true for a press, false for a release
+		 * @param when when the event happened, from System.nanoTime()
+		 */
+		void keyEvent(int key, boolean pressed, long when);
+	}
+
+	/**
+	 * Create a queue with the default capacity.
+	 */
+	public SInputQueue(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a queue.
+	 * @param capacity how many events the queue can hold. rounded up to a power of 2
+	 */
+	public SInputQueue(int capacity){
+		int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		keys = new int[size];
+		presses = new boolean[size];
+		times = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Queue a key press. Called by the producer only.
+	 * @param key which key was pressed
+	 */
+	public void keyPressed(int key){
+		if ((held & (1 << key)) != 0){
+			repeatsCoalesced++; //a key repeat. the key is already down
+			return;
+		}
+		//leave room for the release of every key that will be down after this one is
+		if (offer(key, true, Integer.bitCount(held) + 1)){
+			held |= 1 << key;
+		}
+	}
+
+	/**
+	 * Queue a key release. Called by the producer only.
+	 * @param key which key was released
+	 */
+	public void keyReleased(int key){
+		if ((held & (1 << key)) == 0){
+			return; //its press was dropped, so the game never saw it go down
+		}
+		held &= ~(1 << key);
+		offer(key, false, 0); //there is always room, since keyPressed() left some for it
+	}
+
+	/**
+	 * Write one event into the ring, if there is room.
+	 * @param reserved how many slots must still be free after this event
+	 * @return true if the event was queued, false if the queue was full
+	 */
+	private boolean offer(int key, boolean pressed, int reserved){
+		long position = tail.get();
+		if (position - head.get() + reserved > mask){
+			dropped++;
+			return false;
+		}
+		int slot = (int) position & mask;
+		keys[slot] = key;
+		presses[slot] = pressed;
+		times[slot] = System.nanoTime();
+		tail.lazySet(position + 1); //publishes the slot to the consumer
+		return true;
+	}
+
+	/**
+	 * Pass every queued event to a handler, oldest first, and empty the
+	 * queue. Called by the consumer only (the game loop, once per tick).
+	 * @param handler what to pass the events to
+	 * @return int: how many events were passed to the handler
+	 */
+	public int drain(Handler handler){
+		long position = head.get();
+		long end = tail.get();
+		int handled = 0;
+		long now = System.nanoTime();
+		while (position < end){
+			int slot = (int) position & mask;
+			int key = keys[slot];
+			boolean pressed = presses[slot];
+			long when = times[slot];
+			if (!pressed && position + 1 < end){
+				int next = (int) (position + 1) & mask;
+				if (presses[next] && keys[next] == key){
+					//the key went up and straight back down again, so it never really stopped being held
+					position += 2;
+					pairsCoalesced++;
+					continue;
+				}
+			}
+			position++;
+			long waited = now - when;
+			totalWaitNanos += waited;
+			maxWaitNanos = Math.max(maxWaitNanos, waited);
+			eventsDrained++;
+			handler.keyEvent(key, pressed, when);
+			handled++;
+		}
+		head.lazySet(position); //gives the slots back to the producer
+		return handled;
+	}
+
+	/**
+	 * Return how many events did not fit in the queue.
+	 * @return long: the number of dropped events
+	 */
+	public long getDropped(){
+		return dropped;
+	}
+
+	/**
+	 * Return how many key repeat events were left out of the queue: presses
+	 * of keys that were already down, plus two for every release and press 
+	 * pair that was dropped from a drain.
+	 * @return long: the number of coalesced events
+	 */
+	public long getCoalesced(){
+		return repeatsCoalesced + 2 * pairsCoalesced;
+	}
+
+	/**
+	 * Return how long, on average, events waited in the queue between being
+	 * sensed and being drained.
+	 * @return double: the average wait in milliseconds, or 0 if no events have been drained
+	 */
+	public double getAverageWaitMillis(){
+		return eventsDrained == 0 ? 0 : totalWaitNanos / (eventsDrained * 1000000.0);
+	}
+
+	/**
+	 * Return the longest any event waited in the queue between being sensed
+	 * and being drained.
+	 * @return double: the longest wait in milliseconds
+	 */
+	public double getMaxWaitMillis(){
+		return maxWaitNanos / 1000000.0;
+	}
+
+	/**
+	 * @return a summary of how the queue has been doing, for debugging
+	 */
+	@Override
+	public String toString(){
+		return "input queue: " + (tail.get() - head.get()) + " waiting, " + getCoalesced() + " coalesced, " + dropped + " dropped, "
+				+ String.format("%.2f", getAverageWaitMillis()) + " ms average wait (" + String.format("%.2f", getMaxWaitMillis()) + " ms longest)";
+	}
+}
@@ -25,10 +25,29 @@ public class SMap {
 	private int edgeWarpDown; //if there is a down edge warp, what is it? if there is not, it is the letter "n." 
 	private int edgeWarpConstant; //a constant meant to allow for the programmer to change how far the sprite should be before an edgewarp happens. all sides are equalized within the program, so changing the value of this field will change all sides evenly.
 	private int shapeCount; //how many shapes are in the file?
+	private SShapeTable shapeTable; //the shape data again, normalized and stored one array per value, for the collision and climbability checks
 	//private String mapFile; //the map number converted into a file name, e.g. 1 turns into 001.txt, 20 turns into 020.txt
 	private int warpCount; //how many warps are there within the map?
 	private int[][] warpList; //a list storing in-map-warps. each warp has a map number, an x value, and a  y value,
 	private String fileName; //unused field for a file name
+	private int frameWidth; //the width of the map, as read from the file
+	private int frameHeight; //the height of the map, as read from the file
+	private static final int GRID_CELL_SIZE = 32; //the width and height, in pixels, of each cell of the collision grid
+	private int gridColumns; //how many columns of cells the collision grid has
+	private int gridRows; //how many rows of cells the collision grid has
+	private int[] gridCellStart; //where each cell's list begins within gridShapes. the shapes in cell c are gridShapes[gridCellStart[c]] up to (not including) gridShapes[gridCellStart[c + 1]]
+	private int[] gridShapes; //the shape numbers of every solid shape (collision value 1), grouped by the grid cells they overlap
+	private int[] gridLeft; //the left side of each shape in gridShapes, in the same order, so that a cell's shapes can be checked straight down flat arrays
+	private int[] gridTop; //the top side of each shape in gridShapes, in the same order
+	private int[] gridRight; //the right side of each shape in gridShapes, in the same order
+	private int[] gridBottom; //the bottom side of each shape in gridShapes, in the same order
+	private SCollisionKernel collisionKernel = SCollisionKernel.get(); //the loop that checks a grid cell's shapes for collision
+	private int[] climbGridCellStart; //the same as gridCellStart, for the climbable shapes
+	private int[] climbGridShapes; //the shape numbers of every climbable shape (climbability 1, 2, 3 or an in-map-warp), grouped by the grid cells their climbable area overlaps
+	private int rasterWidth; //the width of the collision and climbability rasters, the same as the width of the map
+	private int rasterHeight; //the height of the collision and climbability rasters, the same as the height of the map
+	private long[] solidRaster; //one bit per pixel of the map, set if the pixel is solid. null unless the map has been rasterized
+	private byte[] climbRaster; //one byte per pixel of the map, holding the getClimb value of that pixel. null unless the map has been rasterized
 
 	/**
 	 * Create a new sMap class by initializing the map number.
@@ -43,6 +62,7 @@ public class SMap {
 	 */
 	public void setShapeData(int[][] data){
 		shapeData = data;
+		buildShapeTable();
 	}
 	/**
 	 * Set the shape count. Shape count is stored within the map file, 
@@ -51,6 +71,17 @@ public class SMap {
 	 */
 	public void setShapeCount(int val){
 		shapeCount = val;
+		buildShapeTable();
+	}
+
+	/**
+	 * Copy the shape data into the shape table, once both the shape data
+	 * and the shape count have been set.
+	 */
+	private void buildShapeTable(){
+		if (shapeData != null){
+			shapeTable = new SShapeTable(shapeData, shapeCount);
+		}
 	}
 	/**
 	 * Set the warp count. Warp count is stored within the map file,
@@ -68,6 +99,25 @@ public class SMap {
 		warpList = list;
 	}
 
+	/**
+	 * Set the width and height of the map, as read from the map file.
+	 * @param width the width of the map
+	 * @param height the height of the map
+	 */
+	public void setFrameSize(int width, int height){
+		frameWidth = width;
+		frameHeight = height;
+	}
+	/**
+	 * Set the spawn point of the map, as read from the map file.
+	 * @param x the x value of the spawn point
+	 * @param y the y value of the spawn point
+	 */
+	public void setSpawn(int x, int y){
+		spawnX = x;
+		spawnY = y;
+	}
+
 	/**
 	 * check the climbability of the specified location. 
 	 * 
@@ -79,36 +129,19 @@ public class SMap {
 	 * @return int: the climbability value of a particular x and y position
 	 */
 	public int getClimb(int x, int y){
-		int rectLeft = 0;
-		int rectRight = 0;
-		int rectTop = 0;
-		int rectBottom = 0;
-		int canClimb = 0;
-		int charWidthR = 0;
-		int charWidthL = 0;
-		int charHeightU = 0;
-		int charHeightD = 0;
-		checkAll: for (int i = 0; i < shapeCount; i++){
-			rectLeft = readNum(i, 0);
-			rectRight = rectLeft + readNum(i, 2);
-			rectTop = readNum(i, 1);
-			rectBottom = rectTop + readNum(i, 3);
-			if(((x <= rectLeft + charWidthR && x >= rectLeft + charWidthR) || (x >= rectRight + charWidthL && x <= rectRight + charWidthL) || (x >= rectLeft + charWidthL - 3 && x <= rectRight + charWidthR)) && (y >= rectTop + charHeightU && y <= rectBottom + charHeightD)){
-				canClimb = readNum(i, 5);
-				if (canClimb == 0 || canClimb >= 10){
-					if(canClimb >= 10){
-						return(canClimb); // do an in-map-warp! returns warp number + 10 (this is how the value is stored in the file).
-					}
-				} else {
-					if (canClimb == 2){
-						return 2;
-					} else if (canClimb == 1){
-						return 1;
-					} else if (canClimb == 3){
-						return 3;
-					}
-
-				}
+		if (climbRaster != null && x >= 0 && x < rasterWidth && y >= 0 && y < rasterHeight){
+			return climbRaster[y * rasterWidth + x] & 0xFF;
+		}
+		int[] climbable = shapeTable.getClimbableShapes();
+		int[] xs = shapeTable.getX();
+		int[] ys = shapeTable.getY();
+		int[] widths = shapeTable.getWidth();
+		int[] heights = shapeTable.getHeight();
+		for (int k = 0; k < climbable.length; k++){
+			int i = climbable[k];
+			//a shape can be climbed from 3 pixels to the left of it, up to its right side
+			if (x >= xs[i] - 3 && x <= xs[i] + widths[i] && y >= ys[i] && y <= ys[i] + heights[i]){
+				return shapeTable.getClimb()[i]; //an in-map-warp returns warp number + 10 (this is how the value is stored in the file).
 			}
 		}
 		return 0;
@@ -133,21 +166,63 @@ public class SMap {
 	 * @return boolean: true if player can walk through the specified x, y position. false if not.
 	 */
 	public boolean getCollision(int x, int y){
-		int xMin = 0;
-		int xMax = 0;
-		int yMin = 0;
-		int yMax = 0;
-		int charWidthR = 0;
-		int charWidthL = 0;
-		int charHeightU = 0;
-		int charHeightD = 0;
-		checkAll: for (int i = 0; i < shapeCount; i++){
-			if (readNum(i, 4) == 1){
-				xMin = readNum(i, 0);
-				yMin = readNum(i, 1);
-				xMax = xMin + readNum(i, 2);
-				yMax = yMin + readNum(i, 3);
-				if(x >= xMin + charWidthR && x <= xMax + charWidthL && y >= yMin + charHeightU && y <= yMax + charHeightD){
+		if (solidRaster != null && x >= 0 && x < rasterWidth && y >= 0 && y < rasterHeight){
+			int pixel = y * rasterWidth + x;
+			return (solidRaster[pixel >> 6] & (1L << pixel)) == 0;
+		}
+		if (gridCellStart != null){
+			return getGridCollision(x, y);
+		}
+		int[] solid = shapeTable.getSolidShapes();
+		for (int k = 0; k < solid.length; k++){
+			if (containsPoint(solid[k], x, y)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * check the collision of a whole rectangle at once, such as one edge of 
+	 * the player's hitbox. This gives the same answer as calling getCollision 
+	 * for every pixel in the rectangle, but with the collision grid, each grid
+	 * cell the rectangle touches is checked in one call to the collision 
+	 * kernel (see SCollisionKernel), instead of once per pixel.
+	 * @param left the x value of the rectangle's left column
+	 * @param top the y value of the rectangle's top row
+	 * @param right the x value of the rectangle's right column
+	 * @param bottom the y value of the rectangle's bottom row
+	 * @return boolean: true if the player can walk through every pixel of the rectangle. false if not.
+	 */
+	public boolean getAreaCollision(int left, int top, int right, int bottom){
+		if (left > right || top > bottom){
+			return true; //an empty rectangle has nothing in it to collide with
+		}
+		if (solidRaster != null && left >= 0 && right < rasterWidth && top >= 0 && bottom < rasterHeight){
+			for (int y = top; y <= bottom; y++){
+				for (int x = left; x <= right; x++){
+					int pixel = y * rasterWidth + x;
+					if ((solidRaster[pixel >> 6] & (1L << pixel)) != 0){
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		if (gridCellStart == null){
+			for (int y = top; y <= bottom; y++){
+				for (int x = left; x <= right; x++){
+					if (!getCollision(x, y)){
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		for (int row = gridRow(top); row <= gridRow(bottom); row++){
+			for (int column = gridColumn(left); column <= gridColumn(right); column++){
+				int cell = row * gridColumns + column;
+				if (collisionKernel.anyOverlap(gridLeft, gridTop, gridRight, gridBottom, gridCellStart[cell], gridCellStart[cell + 1], left, top, right, bottom)){
 					return false;
 				}
 			}
@@ -155,6 +230,423 @@ public class SMap {
 		return true;
 	}
 
+	/**
+	 * does a shape cover a point? the shape's right and bottom sides count.
+	 * @param i the shape number
+	 * @param x the x coordinate to check
+	 * @param y the y coordinate to check
+	 * @return boolean: true if the point is inside the shape
+	 */
+	private boolean containsPoint(int i, int x, int y){
+		int xMin = shapeTable.getX()[i];
+		int yMin = shapeTable.getY()[i];
+		return x >= xMin && x <= xMin + shapeTable.getWidth()[i] && y >= yMin && y <= yMin + shapeTable.getHeight()[i];
+	}
+
+	/**
+	 * Build the collision grid, a uniform grid of buckets laid over the map
+	 * that lists which solid shapes overlap each cell. Once it is built,
+	 * getCollision only has to check the few shapes in the cell that contains
+	 * the point, instead of every shape in the map. A second grid with the
+	 * same cells lists the climbable shapes, for getClimbDistance.
+	 * 
+	 * Points and shapes that are outside of the map are clamped into the 
+	 * cells along its edges, so that the grid gives exactly the same answers
+	 * as checking every shape. This must be called after setShapeData and 
+	 * setShapeCount, and only needs to be called once, when the map is loaded.
+	 * @param width the width of the map, as read from the map file
+	 * @param height the height of the map, as read from the map file
+	 */
+	public void buildCollisionGrid(int width, int height){
+		gridColumns = Math.max(1, (width + GRID_CELL_SIZE - 1) / GRID_CELL_SIZE);
+		gridRows = Math.max(1, (height + GRID_CELL_SIZE - 1) / GRID_CELL_SIZE);
+		int[][] solidGrid = buildGrid(false);
+		int[][] climbGrid = buildGrid(true);
+		gridCellStart = solidGrid[0];
+		gridShapes = solidGrid[1];
+		gridLeft = new int[gridShapes.length];
+		gridTop = new int[gridShapes.length];
+		gridRight = new int[gridShapes.length];
+		gridBottom = new int[gridShapes.length];
+		for (int k = 0; k < gridShapes.length; k++){
+			int i = gridShapes[k];
+			gridLeft[k] = shapeTable.getX()[i];
+			gridTop[k] = shapeTable.getY()[i];
+			gridRight[k] = gridLeft[k] + shapeTable.getWidth()[i];
+			gridBottom[k] = gridTop[k] + shapeTable.getHeight()[i];
+		}
+		climbGridCellStart = climbGrid[0];
+		climbGridShapes = climbGrid[1];
+	}
+
+	/**
+	 * Build one grid of buckets for buildCollisionGrid().
+	 * @param climbable true to list the climbable shapes, false to list the solid shapes
+	 * @return int[][]: the grid's cell start array, then its shape array (see gridCellStart and gridShapes)
+	 */
+	private int[][] buildGrid(boolean climbable){
+		int cellCount = gridColumns * gridRows;
+		int[] cellStart = null;
+		int[] shapes = null;
+		int[] listed = climbable ? shapeTable.getClimbableShapes() : shapeTable.getSolidShapes();
+		/*
+		 * this is done in two passes. the first pass counts how many shapes
+		 * land in each cell, so that the second pass can store every cell's 
+		 * list back to back in one array without any resizing.
+		 */
+		int[] cellSize = new int[cellCount];
+		for (int pass = 0; pass < 2; pass++){
+			for (int k = 0; k < listed.length; k++){
+				int i = listed[k];
+				int left = shapeTable.getX()[i];
+				//a climbable shape's area reaches 3 pixels past its left side (see getClimb)
+				int firstColumn = gridColumn(climbable ? left - 3 : left);
+				int lastColumn = gridColumn(left + shapeTable.getWidth()[i]);
+				int firstRow = gridRow(shapeTable.getY()[i]);
+				int lastRow = gridRow(shapeTable.getY()[i] + shapeTable.getHeight()[i]);
+				for (int row = firstRow; row <= lastRow; row++){
+					for (int column = firstColumn; column <= lastColumn; column++){
+						int cell = row * gridColumns + column;
+						if (pass == 0){
+							cellSize[cell]++;
+						} else {
+							shapes[cellStart[cell] + cellSize[cell]] = i;
+							cellSize[cell]++;
+						}
+					}
+				}
+			}
+			if (pass == 0){
+				cellStart = new int[cellCount + 1];
+				for (int cell = 0; cell < cellCount; cell++){
+					cellStart[cell + 1] = cellStart[cell] + cellSize[cell];
+					cellSize[cell] = 0;
+				}
+				shapes = new int[cellStart[cellCount]];
+			}
+		}
+		return new int[][] {cellStart, shapes};
+	}
+
+	/**
+	 * Find how far below a row the first solid pixel is, within a span of
+	 * columns. This is the distance something as wide as the span can fall 
+	 * before it lands, worked out in one pass over the solid shapes nearby 
+	 * instead of checking every pixel on the way down.
+	 * @param left the leftmost column to check
+	 * @param right the rightmost column to check
+	 * @param y the row to start at
+	 * @param maxDistance how far below y to look
+	 * @return int: the distance from y down to the first row with something solid
+	 * 		   in it (0 if row y itself is solid), or maxDistance + 1 if there 
+	 * 		   is nothing solid that close
+	 */
+	public int getSolidDistance(int left, int right, int y, int maxDistance){
+		return distanceBelow(false, left, right, y, maxDistance);
+	}
+
+	/**
+	 * Find how far below a row the first climbable pixel is, within a span of
+	 * columns. Climbable means any pixel where getClimb() would not return 0,
+	 * so water and in-map-warps count. This is worked out in one pass over
+	 * the climbable shapes nearby instead of checking every pixel.
+	 * @param left the leftmost column to check
+	 * @param right the rightmost column to check
+	 * @param y the row to start at
+	 * @param maxDistance how far below y to look
+	 * @return int: the distance from y down to the first row with something 
+	 * 		   climbable in it (0 if row y itself is climbable), or maxDistance + 1
+	 * 		   if there is nothing climbable that close
+	 */
+	public int getClimbDistance(int left, int right, int y, int maxDistance){
+		return distanceBelow(true, left, right, y, maxDistance);
+	}
+
+	/**
+	 * the shared part of getSolidDistance() and getClimbDistance().
+	 * @param climbable true to look for climbable pixels, false to look for solid pixels
+	 * @return int: see getSolidDistance()
+	 */
+	private int distanceBelow(boolean climbable, int left, int right, int y, int maxDistance){
+		int nearest = maxDistance + 1;
+		int[] cellStart = climbable ? climbGridCellStart : gridCellStart;
+		int[] shapes = climbable ? climbGridShapes : gridShapes;
+		if (cellStart == null){
+			int[] listed = climbable ? shapeTable.getClimbableShapes() : shapeTable.getSolidShapes();
+			for (int k = 0; k < listed.length; k++){
+				nearest = Math.min(nearest, distanceToShape(listed[k], climbable, left, right, y, maxDistance));
+			}
+		} else {
+			for (int row = gridRow(y); row <= gridRow(y + maxDistance); row++){
+				for (int column = gridColumn(left); column <= gridColumn(right); column++){
+					int cell = row * gridColumns + column;
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++){
+						nearest = Math.min(nearest, distanceToShape(shapes[k], climbable, left, right, y, maxDistance));
+					}
+				}
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Work out how far below a row a shape starts, within a span of columns. 
+	 * See distanceBelow() for the parameters.
+	 * @param i the shape number, which must be solid, or climbable if climbable is true
+	 * @return int: the distance from y down to the shape's first row, or Integer.MAX_VALUE if the shape is not in the way
+	 */
+	private int distanceToShape(int i, boolean climbable, int left, int right, int y, int maxDistance){
+		int xMin = shapeTable.getX()[i];
+		int yMin = shapeTable.getY()[i];
+		int xMax = xMin + shapeTable.getWidth()[i];
+		int yMax = yMin + shapeTable.getHeight()[i];
+		boolean overlaps = climbable ? climbOverlapsColumns(i, left, right) : xMax >= left && xMin <= right;
+		if (!overlaps || yMax < y || yMin > y + maxDistance){
+			return Integer.MAX_VALUE;
+		}
+		return Math.max(0, yMin - y);
+	}
+
+	/**
+	 * does a climbable shape's area overlap a span of columns? the area 
+	 * covers the same columns getClimb matches: from 3 pixels left of the
+	 * shape up to its right side.
+	 * @param i the shape number
+	 * @param left the leftmost column
+	 * @param right the rightmost column
+	 * @return boolean: true if any of the columns are in the shape's climbable area
+	 */
+	private boolean climbOverlapsColumns(int i, int left, int right){
+		int xMin = shapeTable.getX()[i];
+		return xMin - 3 <= right && xMin + shapeTable.getWidth()[i] >= left;
+	}
+
+	/**
+	 * Find every kind of climbability in a rectangle of the map, in one pass
+	 * over the climbable shapes that overlap it, instead of calling getClimb
+	 * for every pixel. Every climbable shape that overlaps the rectangle 
+	 * counts, even where it is under another climbable shape.
+	 * @param left the x value of the rectangle's left column
+	 * @param top the y value of the rectangle's top row
+	 * @param right the x value of the rectangle's right column
+	 * @param bottom the y value of the rectangle's bottom row
+	 * @return SClimbRegion: the kinds of climbability and the highest in-map-warp in the rectangle
+	 */
+	public SClimbRegion getClimbRegion(int left, int top, int right, int bottom){
+		int kinds = 0;
+		int warp = 0;
+		int[] climbs = shapeTable.getClimb();
+		if (climbGridCellStart == null){
+			int[] climbable = shapeTable.getClimbableShapes();
+			for (int k = 0; k < climbable.length; k++){
+				int i = climbable[k];
+				if (climbOverlaps(i, left, top, right, bottom)){
+					kinds |= SClimbRegion.kindBit(climbs[i]);
+					warp = Math.max(warp, climbs[i] >= 10 ? climbs[i] : 0);
+				}
+			}
+		} else {
+			for (int row = gridRow(top); row <= gridRow(bottom); row++){
+				for (int column = gridColumn(left); column <= gridColumn(right); column++){
+					int cell = row * gridColumns + column;
+					for (int k = climbGridCellStart[cell]; k < climbGridCellStart[cell + 1]; k++){
+						int i = climbGridShapes[k];
+						if (climbOverlaps(i, left, top, right, bottom)){
+							kinds |= SClimbRegion.kindBit(climbs[i]);
+							warp = Math.max(warp, climbs[i] >= 10 ? climbs[i] : 0);
+						}
+					}
+				}
+			}
+		}
+		return new SClimbRegion(kinds, warp);
+	}
+
+	/**
+	 * does a climbable shape's area overlap a rectangle? see climbOverlapsColumns().
+	 * @param i the shape number
+	 * @return boolean: true if the rectangle has at least one pixel of the shape's climbable area
+	 */
+	private boolean climbOverlaps(int i, int left, int top, int right, int bottom){
+		int yMin = shapeTable.getY()[i];
+		return yMin <= bottom && yMin + shapeTable.getHeight()[i] >= top && climbOverlapsColumns(i, left, right);
+	}
+
+	/**
+	 * Sweep a box through the map and find how far it can go before it hits
+	 * something solid. The box moves along x first, then along y from 
+	 * wherever it stopped. Along each axis, it moves one pixel at a time 
+	 * until the next pixel row or column at its leading edge would touch a 
+	 * solid pixel (see getCollision), but the answer is worked out in one 
+	 * pass over the solid shapes near its path instead of checking every pixel.
+	 * 
+	 * This gives exactly the same result as moving one pixel at a time and 
+	 * checking getCollision along the leading edge before each step.
+	 * @param left the x value of the box's left column
+	 * @param top the y value of the box's top row
+	 * @param right the x value of the box's right column
+	 * @param bottom the y value of the box's bottom row
+	 * @param dx how far to move the box along x (negative is left)
+	 * @param dy how far to move the box along y (negative is up)
+	 * @return SSweepResult: how far the box actually moved, and the normal of whatever it hit
+	 */
+	public SSweepResult sweep(int left, int top, int right, int bottom, int dx, int dy){
+		int movedX = sweepAxis(true, dx > 0 ? right : left, top, bottom, dx);
+		int movedY = sweepAxis(false, dy > 0 ? bottom : top, left + movedX, right + movedX, dy);
+		return new SSweepResult(movedX, movedY, movedX != dx ? -Integer.signum(dx) : 0, movedY != dy ? -Integer.signum(dy) : 0);
+	}
+
+	/**
+	 * Sweep the leading edge of a box along one axis. See sweep().
+	 * @param alongX true to move along x (the edge is a column), false to move along y (the edge is a row)
+	 * @param edge the x value of the leading column, or the y value of the leading row
+	 * @param spanMin the lowest y value (for a column) or x value (for a row) the edge covers
+	 * @param spanMax the highest y value (for a column) or x value (for a row) the edge covers
+	 * @param distance how far to move (negative is left or up)
+	 * @return int: how far the edge can move, with the same sign as distance
+	 */
+	private int sweepAxis(boolean alongX, int edge, int spanMin, int spanMax, int distance){
+		if (distance == 0){
+			return 0;
+		}
+		int direction = Integer.signum(distance);
+		//the pixels the edge passes through are strictly beyond it, up to and including edge + distance
+		int pathMin = Math.min(edge + direction, edge + distance);
+		int pathMax = Math.max(edge + direction, edge + distance);
+		int firstHit = Math.abs(distance) + 1; //how many steps until the edge first touches something solid
+		if (gridCellStart == null){
+			int[] solid = shapeTable.getSolidShapes();
+			for (int k = 0; k < solid.length; k++){
+				firstHit = Math.min(firstHit, stepsToShape(solid[k], alongX, edge, direction, spanMin, spanMax, pathMin, pathMax));
+			}
+		} else {
+			//only the grid cells that the path passes through can hold shapes in the way
+			int firstColumn = gridColumn(alongX ? pathMin : spanMin);
+			int lastColumn = gridColumn(alongX ? pathMax : spanMax);
+			int firstRow = gridRow(alongX ? spanMin : pathMin);
+			int lastRow = gridRow(alongX ? spanMax : pathMax);
+			for (int row = firstRow; row <= lastRow; row++){
+				for (int column = firstColumn; column <= lastColumn; column++){
+					int cell = row * gridColumns + column;
+					for (int k = gridCellStart[cell]; k < gridCellStart[cell + 1]; k++){
+						firstHit = Math.min(firstHit, stepsToShape(gridShapes[k], alongX, edge, direction, spanMin, spanMax, pathMin, pathMax));
+					}
+				}
+			}
+		}
+		return direction * (Math.min(firstHit, Math.abs(distance) + 1) - 1);
+	}
+
+	/**
+	 * Work out how many steps an edge can take before it first touches a solid shape.
+	 * See sweepAxis() for the parameters.
+	 * @param i the shape number
+	 * @return int: the step on which the edge first touches the shape, or Integer.MAX_VALUE if it never does
+	 */
+	private int stepsToShape(int i, boolean alongX, int edge, int direction, int spanMin, int spanMax, int pathMin, int pathMax){
+		int xMin = shapeTable.getX()[i];
+		int yMin = shapeTable.getY()[i];
+		int xMax = xMin + shapeTable.getWidth()[i];
+		int yMax = yMin + shapeTable.getHeight()[i];
+		int min = alongX ? xMin : yMin; //the shape's extent along the direction of movement
+		int max = alongX ? xMax : yMax;
+		int crossMin = alongX ? yMin : xMin; //the shape's extent across the direction of movement
+		int crossMax = alongX ? yMax : xMax;
+		if (crossMax < spanMin || crossMin > spanMax || max < pathMin || min > pathMax){
+			return Integer.MAX_VALUE;
+		}
+		return direction > 0 ? Math.max(1, min - edge) : Math.max(1, edge - max);
+	}
+
+	/**
+	 * Rasterize the map. Since maps never change during play, the answers to
+	 * getCollision and getClimb can be worked out for every pixel of the map 
+	 * ahead of time and stored, one bit per pixel for collision and one byte 
+	 * per pixel for climbability. After this is called, both of those 
+	 * methods just look the answer up for any point inside the map. Points 
+	 * outside of the map are still checked against the shapes.
+	 * 
+	 * The rasters follow the same rules as getCollision and getClimb exactly,
+	 * including the 3 pixel slack on the left side of climbable shapes, and
+	 * the first shape in the file winning when climbable shapes overlap.
+	 * This must be called after setShapeData and setShapeCount.
+	 * @param width the width of the map, as read from the map file
+	 * @param height the height of the map, as read from the map file
+	 */
+	public void rasterize(int width, int height){
+		rasterWidth = Math.max(0, width);
+		rasterHeight = Math.max(0, height);
+		long[] solid = new long[(rasterWidth * rasterHeight + 63) >> 6];
+		byte[] climb = new byte[rasterWidth * rasterHeight];
+		boolean climbFits = true; //the climb raster can only hold values up to 255
+		/*
+		 * shapes are painted from last to first, so that where shapes overlap, 
+		 * the one that comes first in the file is painted last and wins, the 
+		 * same way it would be found first by getClimb.
+		 */
+		for (int i = shapeTable.getCount() - 1; i >= 0; i--){
+			int left = shapeTable.getX()[i];
+			int top = shapeTable.getY()[i];
+			int right = left + shapeTable.getWidth()[i];
+			int bottom = top + shapeTable.getHeight()[i];
+			if (shapeTable.isSolid(i)){
+				for (int y = Math.max(0, top); y <= Math.min(rasterHeight - 1, bottom); y++){
+					for (int x = Math.max(0, left); x <= Math.min(rasterWidth - 1, right); x++){
+						int pixel = y * rasterWidth + x;
+						solid[pixel >> 6] |= 1L << pixel;
+					}
+				}
+			}
+			if (shapeTable.isClimbable(i)){
+				int canClimb = shapeTable.getClimb()[i];
+				if (canClimb > 255){
+					climbFits = false;
+				}
+				for (int y = Math.max(0, top); y <= Math.min(rasterHeight - 1, bottom); y++){
+					//getClimb matches anywhere from 3 pixels left of the shape up to its right side
+					for (int x = Math.max(0, left - 3); x <= Math.min(rasterWidth - 1, right); x++){
+						climb[y * rasterWidth + x] = (byte) canClimb;
+					}
+				}
+			}
+		}
+		solidRaster = solid;
+		//if any climb value was too big to fit, getClimb just keeps checking the shapes
+		climbRaster = climbFits ? climb : null;
+	}
+
+	/**
+	 * find which column of the collision grid an x value falls into.
+	 * x values to the left or right of the map are clamped to the first or last column.
+	 * @param x the x value
+	 * @return the grid column
+	 */
+	private int gridColumn(int x){
+		return Math.min(gridColumns - 1, Math.max(0, Math.floorDiv(x, GRID_CELL_SIZE)));
+	}
+
+	/**
+	 * find which row of the collision grid a y value falls into.
+	 * y values above or below the map are clamped to the first or last row.
+	 * @param y the y value
+	 * @return the grid row
+	 */
+	private int gridRow(int y){
+		return Math.min(gridRows - 1, Math.max(0, Math.floorDiv(y, GRID_CELL_SIZE)));
+	}
+
+	/**
+	 * the collision grid version of getCollision. only checks the solid shapes
+	 * listed in the grid cell that contains the specified point.
+	 * @param x the x coordinate to check
+	 * @param y the y coordinate to check
+	 * @return boolean: true if player can walk through the specified x, y position. false if not.
+	 */
+	private boolean getGridCollision(int x, int y){
+		int cell = gridRow(y) * gridColumns + gridColumn(x);
+		return !collisionKernel.anyOverlap(gridLeft, gridTop, gridRight, gridBottom, gridCellStart[cell], gridCellStart[cell + 1], x, y, x, y);
+	}
+
 	/**
 	 * Return the map number of the edge warp on the left side of the map.
 	 * @return int: map number of left edge warp
@@ -234,4 +726,78 @@ public class SMap {
 		return warpList[warpNumber][value];
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Return the map number of this map.
+	 * @return int: the map number
+	 */
+	public int getMapNumber(){
+		return map;
+	}
+
+	/**
+	 * Return the width of the map, as read from the map file.
+	 * @return int: the width of the map
+	 */
+	public int getFrameWidth(){
+		return frameWidth;
+	}
+
+	/**
+	 * Return the height of the map, as read from the map file.
+	 * @return int: the height of the map
+	 */
+	public int getFrameHeight(){
+		return frameHeight;
+	}
+
+	/**
+	 * Return the x value of the spawn point, as read from the map file.
+	 * @return int: the x value of the spawn point
+	 */
+	public int getSpawnX(){
+		return spawnX;
+	}
+
+	/**
+	 * Return the y value of the spawn point, as read from the map file.
+	 * @return int: the y value of the spawn point
+	 */
+	public int getSpawnY(){
+		return spawnY;
+	}
+
+	/**
+	 * Return the shape count, the number of shapes in the map.
+	 * @return int: the shape count
+	 */
+	public int getShapeCount(){
+		return shapeCount;
+	}
+
+	/**
+	 * Return the shape data, the 2 dimensional array that contains
+	 * all information about each shape in the map.
+	 * @return int[][]: the shape data
+	 */
+	public int[][] getShapeData(){
+		return shapeData;
+	}
+
+	/**
+	 * Return the shape table, which holds the same shapes as the shape data,
+	 * normalized and stored one array per value.
+	 * @return SShapeTable: the shape table
+	 */
+	public SShapeTable getShapeTable(){
+		return shapeTable;
+	}
+
+	/**
+	 * Return the warp count, the number of in-map-warps in the map.
+	 * @return int: the warp count
+	 */
+	public int getWarpCount(){
+		return warpCount;
+	}
+
+}
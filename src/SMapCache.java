@@ -0,0 +1,205 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently used maps loaded, so that going back and forth between
+ * the same maps (for example, walking back and forth across an edge warp)
+ * does not read and index the same map file again every time.
+ * 
+ * Maps are kept by map number. Once the cache holds as many maps as its
+ * capacity, loading another map removes the map that was used least 
+ * recently. Maps in the cache are fully loaded, with their collision grid
+ * (and rasters, if turned on) already built, and are never changed after
+ * they are loaded, so they can be shared.
+ * 
+ * The cache counts hits (a map was already loaded), misses (a map had 
+ * to be loaded), and evictions (a map was removed to make room).
+ * 
+ * @author Adam Cogen
+ *
+ */
+public class SMapCache {
+	public static final int DEFAULT_CAPACITY = 8; //how many maps the cache holds, unless a different capacity is given
+	private int capacity; //the most maps the cache will hold at once
+	private boolean rasterizeMaps; //are maps rasterized when they are loaded? (see SMap.rasterize())
+	private LinkedHashMap<Integer, SMap> maps; //the loaded maps by map number, in order from least recently used to most recently used
+	private int hits; //how many times a requested map was already loaded
+	private int misses; //how many times a requested map had to be loaded
+	private int evictions; //how many maps have been removed to make room for other maps
+
+	/**
+	 * Create a map cache that holds DEFAULT_CAPACITY maps.
+	 * @param rasterize should maps be rasterized when they are loaded?
+	 */
+	public SMapCache(boolean rasterize){
+		this(DEFAULT_CAPACITY, rasterize);
+	}
+
+	/**
+	 * Create a map cache.
+	 * @param capacity the most maps the cache will hold at once. must be at least 1.
+	 * @param rasterize should maps be rasterized when they are loaded?
+	 */
+	public SMapCache(int capacity, boolean rasterize){
+		if (capacity < 1){
+			throw new IllegalArgumentException("map cache capacity must be at least 1, not " + capacity);
+		}
+		this.capacity = capacity;
+		rasterizeMaps = rasterize;
+		maps = new LinkedHashMap<Integer, SMap>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, SMap> eldest){
+				if (size() > SMapCache.this.capacity){
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Return the specified map, loading it if it is not already in the cache.
+	 * The map file is read without holding the cache's lock, so a slow load
+	 * on one thread (such as a prefetch) never makes another thread wait
+	 * for a map that is already loaded.
+	 * @param mapNumber the number of the map
+	 * @return SMap: the loaded map
+	 */
+	public SMap get(int mapNumber){
+		synchronized (this){
+			SMap loaded = maps.get(mapNumber);
+			if (loaded != null){
+				hits++;
+				return loaded;
+			}
+			misses++;
+		}
+		return store(mapNumber, load(mapNumber, rasterizeMaps));
+	}
+
+	/**
+	 * Load the specified map into the cache ahead of time, if it is not 
+	 * already there. This does not count as a hit or a miss.
+	 * @param mapNumber the number of the map
+	 */
+	public void prefetch(int mapNumber){
+		if (contains(mapNumber)){
+			return;
+		}
+		store(mapNumber, load(mapNumber, rasterizeMaps));
+	}
+
+	/**
+	 * Put a freshly loaded map into the cache. If another thread loaded the
+	 * same map in the meantime, keep that one instead, so that everyone 
+	 * shares one copy.
+	 * @param mapNumber the number of the map
+	 * @param loaded the freshly loaded map
+	 * @return SMap: the map that is now in the cache
+	 */
+	private synchronized SMap store(int mapNumber, SMap loaded){
+		SMap existing = maps.get(mapNumber);
+		if (existing != null){
+			return existing;
+		}
+		maps.put(mapNumber, loaded);
+		return loaded;
+	}
+
+	/**
+	 * Read a map from its map file and build everything needed to play on it.
+	 * This does not use or change any cache.
+	 * @param mapNumber the number of the map to load
+	 * @param rasterize should the map be rasterized?
+	 * @return SMap: the loaded map
+	 */
+	public static SMap load(int mapNumber, boolean rasterize){
+		SFileRead sFile = new SFileRead(mapNumber);
+		SMap sMap = new SMap(mapNumber);
+		//shape data
+		sMap.setShapeData(sFile.getRectangleData());
+		sMap.setShapeCount(sFile.getShapeCount());
+		//map size and spawn point
+		sMap.setFrameSize(sFile.getFrameWidth(), sFile.getFrameHeight());
+		sMap.setSpawn(sFile.getSpawnX(), sFile.getSpawnY());
+		//edgewarps
+		sMap.setEdgeWarpDown(sFile.getEdgeWarpDown());
+		sMap.setEdgeWarpLeft(sFile.getEdgeWarpLeft());
+		sMap.setEdgeWarpRight(sFile.getEdgeWarpRight());
+		sMap.setEdgeWarpUp(sFile.getEdgeWarpUp());
+		//normWarps
+		sMap.setWarpCount(sFile.getWarpCount());
+		sMap.setWarpList(sFile.getWarpList());
+		//indexes
+		sMap.buildCollisionGrid(sFile.getFrameWidth(), sFile.getFrameHeight());
+		if (rasterize){
+			sMap.rasterize(sFile.getFrameWidth(), sFile.getFrameHeight());
+		}
+		return sMap;
+	}
+
+	/**
+	 * Check whether a map is in the cache, without loading it or counting a hit or miss.
+	 * @param mapNumber the number of the map
+	 * @return true if the map is loaded
+	 */
+	public synchronized boolean contains(int mapNumber){
+		return maps.containsKey(mapNumber);
+	}
+
+	/**
+	 * Remove every map from the cache. The hit, miss, and eviction counts are kept.
+	 */
+	public synchronized void clear(){
+		maps.clear();
+	}
+
+	/**
+	 * Return the most maps the cache will hold at once.
+	 * @return int: the capacity
+	 */
+	public int getCapacity(){
+		return capacity;
+	}
+
+	/**
+	 * Return how many maps are in the cache.
+	 * @return int: the number of loaded maps
+	 */
+	public synchronized int size(){
+		return maps.size();
+	}
+
+	/**
+	 * Return how many times a requested map was already loaded.
+	 * @return int: the hit count
+	 */
+	public synchronized int getHits(){
+		return hits;
+	}
+
+	/**
+	 * Return how many times a requested map had to be loaded.
+	 * @return int: the miss count
+	 */
+	public synchronized int getMisses(){
+		return misses;
+	}
+
+	/**
+	 * Return how many maps have been removed to make room for other maps.
+	 * @return int: the eviction count
+	 */
+	public synchronized int getEvictions(){
+		return evictions;
+	}
+
+	/**
+	 * Return the hit, miss and eviction counts as one line of text, for debugging.
+	 */
+	@Override
+	public synchronized String toString(){
+		return "map cache: " + maps.size() + "/" + capacity + " maps, " + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+	}
+}
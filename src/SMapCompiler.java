@@ -0,0 +1,129 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Compiles text map files (the kind that the map maker saves) into the 
+ * compact binary map format that SFileRead can memory-map, so that the 
+ * game can start and change maps without parsing any text. 
+ * 
+ * The text files are still what the map maker reads and writes. If a
+ * text file is saved after it was compiled, SFileRead notices that the
+ * compiled file is out of date and reads the text file instead, until 
+ * the maps are compiled again.
+ * 
+ * Run this class from the folder that contains the maps folder. With no
+ * arguments, it compiles every map in the maps folder. Otherwise, it 
+ * compiles only the map numbers given as arguments.
+ * 
+ * @author Adam Cogen
+ *
+ */
+public class SMapCompiler {
+
+	/**
+	 * Compile one map from its text file into its binary file.
+	 * @param mapNumber the number of the map to compile
+	 * @throws IOException if there is no text file to read the map from, the text file is not a valid map, or the binary file could not be written
+	 */
+	public static void compile(int mapNumber) throws IOException {
+		//SFileRead only prints a message when the text file is missing, which would compile into an empty map
+		File textFile = new File("maps/" + mapNumber + ".txt");
+		if (!textFile.isFile() || !textFile.canRead()){
+			throw new IOException("no readable map file " + textFile.getPath());
+		}
+		SFileRead file;
+		try {
+			file = new SFileRead(mapNumber, false);
+		} catch (NoSuchElementException nsee){
+			//the text file ended early or has something that is not a number in it (InputMismatchException)
+			throw new IOException(nsee.getMessage(), nsee);
+		}
+		int[][] shapeData = file.getRectangleData();
+		int[][] warpList = file.getWarpList();
+		String binaryFileName = "maps/" + mapNumber + SFileRead.BINARY_EXTENSION;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFileName)))){
+			//header
+			out.writeInt(SFileRead.BINARY_MAGIC);
+			out.writeInt(SFileRead.BINARY_VERSION);
+			out.writeInt(file.getFrameWidth());
+			out.writeInt(file.getFrameHeight());
+			out.writeInt(file.getSpawnX());
+			out.writeInt(file.getSpawnY());
+			out.writeInt(compiledMapNumber(mapNumber, file.getEdgeWarpLeft()));
+			out.writeInt(compiledMapNumber(mapNumber, file.getEdgeWarpRight()));
+			out.writeInt(compiledMapNumber(mapNumber, file.getEdgeWarpUp()));
+			out.writeInt(compiledMapNumber(mapNumber, file.getEdgeWarpDown()));
+			out.writeInt(file.getShapeCount());
+			out.writeInt(file.getWarpCount());
+			//one 9 int record for each shape
+			for (int i = 0; i < file.getShapeCount(); i++){
+				for (int j = 0; j < 9; j++){
+					out.writeInt(shapeData[i][j]);
+				}
+			}
+			//one 3 int record for each in-map-warp
+			for (int i = 0; i < file.getWarpCount(); i++){
+				out.writeInt(compiledMapNumber(mapNumber, warpList[i][0]));
+				out.writeInt(warpList[i][1]);
+				out.writeInt(warpList[i][2]);
+			}
+		}
+	}
+
+	/**
+	 * warps that lead to the map they are in are stored as BINARY_NO_MAP, 
+	 * the same way the map maker saves them as 'n', so that renaming the 
+	 * file does not break them.
+	 * @param mapNumber the number of the map being compiled
+	 * @param destination the map number a warp leads to
+	 * @return the map number to store in the compiled file
+	 */
+	private static int compiledMapNumber(int mapNumber, int destination){
+		return destination == mapNumber ? SFileRead.BINARY_NO_MAP : destination;
+	}
+
+	/**
+	 * Compile maps. See the comment at the top of this class.
+	 * @param args the map numbers to compile, or nothing to compile every map in the maps folder
+	 */
+	public static void main(String [] args){
+		int compiled = 0;
+		if (args.length > 0){
+			for (String arg : args){
+				try {
+					compile(Integer.parseInt(arg));
+					compiled++;
+				} catch (NumberFormatException nfe){
+					System.out.println("not a map number: " + arg);
+				} catch (IOException ioe){
+					System.out.println("could not compile map " + arg + ": " + ioe.getMessage());
+				}
+			}
+		} else {
+			File[] files = new File("maps").listFiles();
+			if (files == null){
+				System.out.println("no maps folder found in SMapCompiler class main() method");
+				return;
+			}
+			for (File file : files){
+				String name = file.getName();
+				if (!name.endsWith(".txt")){
+					continue;
+				}
+				try {
+					compile(Integer.parseInt(name.substring(0, name.length() - 4)));
+					compiled++;
+				} catch (NumberFormatException nfe){
+					//not a map file, skip it
+				} catch (IOException ioe){
+					System.out.println("could not compile map " + name + ": " + ioe.getMessage());
+				}
+			}
+		}
+		System.out.println("compiled " + compiled + " maps");
+	}
+}
@@ -46,6 +46,9 @@ import java.applet.*;
  *		same as current map), set map number menu now
  *		automatically sets default number to lowest
  *		unused map number in "maps/" file directory
+ * 1.4:	maps bigger than the screen scroll inside the map
+ *		window, instead of making the window bigger than 
+ *		the screen
  *
  * @author Adam Cogen
  * @version Version 1.3, Tuesday, April 11, 2017
@@ -56,6 +59,9 @@ public class SMapMaker extends JFrame{
 	private static final int TOOLBOX_WIDTH = 200; //the width of the toolbox
 	private static final int TOOLBOX_HEIGHT = 355; //the height of the toolbox
 	private APanel panel; //extends JPanel, draws the map on the map frame
+	private JScrollPane scrollPane; //holds the panel, and shows scroll bars when the map is too big to fit in the map frame
+	private static final int VIEW_WIDTH = 1000; //the widest the map frame can get before it scrolls
+	private static final int VIEW_HEIGHT = 700; //the tallest the map frame can get before it scrolls
 	private int map; //an integer that tells the game which file to open
 	private int mouseX; //a temporary storing place for mouse X coordinate, used in many click listeners and such
 	private int mouseY; //a temporary storing place for mouse Y coordinate, used in many click listeners and such
@@ -311,7 +317,9 @@ public class SMapMaker extends JFrame{
 		spawnY = 99; //default spawn point
 		//main frame
 		panel = new APanel();
-		this.add(panel);
+		scrollPane = new JScrollPane(panel);
+		scrollPane.setBorder(null); //a border would move the panel away from where the mouse listeners expect it
+		this.add(scrollPane);
 		this.setTitle("Map Maker: New Map");
 		//this.setSize(GAME_WIDTH + 30, GAME_HEIGHT + 30);
 		this.refreshFrameSize();
@@ -2366,6 +2374,7 @@ public class SMapMaker extends JFrame{
 
 			@Override
 			public void mouseClicked(MouseEvent e) {
+				e = scrolled(e);
 				if(drawType == 0 || drawType == 2 || drawType == 4){
 					if (newRectStep == 0){//rectangle drawmode, oval drawmode, warp drawmode
 						newRectStep++;
@@ -2458,6 +2467,7 @@ public class SMapMaker extends JFrame{
 			}
 			@Override
 			public void mouseMoved(MouseEvent e) {
+				e = scrolled(e);
 				if((drawType == 0 || drawType == 2 || drawType == 4) && newRectStep == 1){
 					mouseX = e.getX();
 					mouseY = e.getY() - 23;
@@ -2519,23 +2529,19 @@ public class SMapMaker extends JFrame{
 				}
 
 				//draw shapes?
+				Rectangle clip = g.getClipBounds(); //the part of the panel being painted. shapes outside of it are skipped, since drawing them would do nothing
 				for(int i = 0; rectCount > 0 && i < rectCount; i++){
 
+					if (clip != null && !inClip(clip, i)){
+						continue;
+					}
+
 					int tempRedVal = (int) rectList.get(i* (9) + 6);
 					int tempGreenVal = (int) rectList.get(i* (9) + 7);
 					int tempBlueVal = (int) rectList.get(i* (9) + 8);
 
-					if (tempRedVal > 255 || tempRedVal < 0){
-						tempRedVal = fixColorRange(tempRedVal);	
-					}
-					if (tempBlueVal > 255 || tempBlueVal < 0){
-						tempBlueVal = fixColorRange(tempBlueVal);
-					}
-					if (tempGreenVal > 255 || tempGreenVal < 0){
-						tempGreenVal = fixColorRange(tempGreenVal);
-					}
-
-					g.setColor(new Color(tempRedVal, tempGreenVal, tempBlueVal));
+					//the palette corrects any values outside of 0 to 255, and hands back the same Color every time
+					g.setColor(SPalette.intern(tempRedVal, tempGreenVal, tempBlueVal));
 
 					if((int) rectList.get(((i) * 9) + 4) == 0 || (int) rectList.get(((i) * 9) + 4) == 1 || (int) rectList.get(((i) * 9) + 4) == 2 || (int) rectList.get(((i) * 9) + 4) == 5){
 						g.fillRect((int) rectList.get(i* (9)), (int) rectList.get(i * (9) + 1), (int) rectList.get(i * (9) + 2), (int) rectList.get(i * (9) + 3));
@@ -2545,7 +2551,7 @@ public class SMapMaker extends JFrame{
 
 				}
 
-				g.setColor(new Color(redVal, greenVal, blueVal));
+				g.setColor(SPalette.intern(redVal, greenVal, blueVal));
 
 				if (newRectStep == 1){
 					//if there has been one click while in a draw mode, render a temporary shape that changes with mouse movements
@@ -2705,30 +2711,18 @@ public class SMapMaker extends JFrame{
 				//draw an char with s in body and head at the coordinates of the spawn point
 				g.setColor(Color.black);
 				g.drawString("s", spawnX + 12, spawnY + 19);
-				g.setColor(Color.gray);
 				int charSpawnX = spawnX+10; //x offset to draw the spawn point preview
 				int charSpawnY = spawnY+26; //y offset to draw the spawn point preview
-				g.drawString("H", charSpawnX, charSpawnY); 
-				g.drawString("- -", charSpawnX - 5, charSpawnY - 6);
-				g.drawString("O", charSpawnX, charSpawnY - 5);
-				g.drawString("o", charSpawnX + 2, charSpawnY - 15);
+				SCharSprites.get(g.getFont(), Color.gray).draw(g, 0, charSpawnX, charSpawnY);
 
 				if(showPermaCharPrev){
 					//drawChar. clickable permanent sprite preview
-					g.setColor(new Color (permaCharPrevColR, permaCharPrevColG, permaCharPrevColB));
-					g.drawString("H", permaCharPrevX, permaCharPrevY); 
-					g.drawString("- -", permaCharPrevX - 5, permaCharPrevY - 6);
-					g.drawString("O", permaCharPrevX, permaCharPrevY - 5);
-					g.drawString("o", permaCharPrevX + 2, permaCharPrevY - 15);
+					SCharSprites.get(g.getFont(), SPalette.intern(permaCharPrevColR, permaCharPrevColG, permaCharPrevColB)).draw(g, 0, permaCharPrevX, permaCharPrevY);
 				}
 
 				if(drawType == 1){
 					//drawChar. mouse motion sprite preview
-					g.setColor(new Color(redVal, greenVal, blueVal));
-					g.drawString("H", charPrevX, charPrevY); 
-					g.drawString("- -", charPrevX - 5, charPrevY - 6);
-					g.drawString("O", charPrevX, charPrevY - 5);
-					g.drawString("o", charPrevX + 2, charPrevY - 15);
+					SCharSprites.get(g.getFont(), SPalette.intern(redVal, greenVal, blueVal)).draw(g, 0, charPrevX, charPrevY);
 				}
 
 				if(drawType == 3 && selectionMade){ //draw the border around a selected shape in edit mode
@@ -2754,6 +2748,24 @@ public class SMapMaker extends JFrame{
 		}
 	}
 
+	/**
+	 * this checks whether a shape in the shape arraylist covers any part of 
+	 * a clip rectangle. shapes are normally stored with a positive width and
+	 * height, but this works either way.
+	 * @param clip the clip rectangle, from Graphics.getClipBounds()
+	 * @param i the shape number
+	 * @return true if the shape overlaps the clip rectangle
+	 */
+	private boolean inClip(Rectangle clip, int i){
+		int x = (int) rectList.get(i * 9);
+		int y = (int) rectList.get(i * 9 + 1);
+		int width = (int) rectList.get(i * 9 + 2);
+		int height = (int) rectList.get(i * 9 + 3);
+		int left = Math.min(x, x + width);
+		int top = Math.min(y, y + height);
+		return left < clip.x + clip.width && left + Math.abs(width) > clip.x && top < clip.y + clip.height && top + Math.abs(height) > clip.y;
+	}
+
 	/**
 	 * this removes all data of the most recently drawn shape from the shape arraylist
 	 * and lowers the shape count by one. it is basically just a limited delete button
@@ -2792,10 +2804,39 @@ public class SMapMaker extends JFrame{
 	public void refreshFrameSize(){
 		//this.setSize(GAME_WIDTH + 30, GAME_HEIGHT + 30);
 		panel.setPreferredSize(new Dimension(GAME_WIDTH + 30, GAME_HEIGHT + 30));
-		this.add(panel);
+		refreshScrollPaneSize();
 		this.pack();
 	}
 
+	/**
+	 * this method sizes the scroll pane to fit the panel, up to VIEW_WIDTH 
+	 * by VIEW_HEIGHT. if the panel is bigger than that, the scroll pane 
+	 * shows scroll bars (which take up some room of their own).
+	 */
+	private void refreshScrollPaneSize(){
+		Dimension size = panel.getPreferredSize();
+		int scrollBarWidth = size.height > VIEW_HEIGHT ? scrollPane.getVerticalScrollBar().getPreferredSize().width : 0;
+		int scrollBarHeight = size.width > VIEW_WIDTH ? scrollPane.getHorizontalScrollBar().getPreferredSize().height : 0;
+		scrollPane.setPreferredSize(new Dimension(Math.min(size.width, VIEW_WIDTH) + scrollBarWidth, Math.min(size.height, VIEW_HEIGHT) + scrollBarHeight));
+		scrollPane.revalidate();
+	}
+
+	/**
+	 * the mouse listeners are on the map frame, so the positions of mouse 
+	 * events are in the frame, not on the map. when the map is scrolled,
+	 * this moves a mouse event by however far the map is scrolled, so that
+	 * it is at the same place on the map as it would be without scrolling.
+	 * @param e the mouse event
+	 * @return the mouse event, moved to where it is on the map
+	 */
+	private MouseEvent scrolled(MouseEvent e){
+		Point scroll = scrollPane.getViewport().getViewPosition();
+		if (scroll.x == 0 && scroll.y == 0){
+			return e;
+		}
+		return new MouseEvent(e.getComponent(), e.getID(), e.getWhen(), e.getModifiersEx(), e.getX() + scroll.x, e.getY() + scroll.y, e.getClickCount(), e.isPopupTrigger(), e.getButton());
+	}
+
 	/**
 	 * this method refreshed the frame title. 
 	 * this was necessary since the whole MapMaker
@@ -2866,7 +2907,7 @@ public class SMapMaker extends JFrame{
 			widthInput.setText("" + GAME_WIDTH);
 			heightInput.setText("" + GAME_HEIGHT);
 			panel.setPreferredSize(new Dimension(GAME_WIDTH, GAME_HEIGHT));
-			this.add(panel);
+			refreshScrollPaneSize();
 			this.pack();
 			//get the spawn point
 			spawnX = (scan1.nextInt() + 5);
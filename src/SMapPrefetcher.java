@@ -0,0 +1,149 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the maps next to the current map in the background, so that they
+ * are already in the map cache by the time the player warps to them.
+ * 
+ * Every map knows which maps it leads to: the four edge warps, and the
+ * destinations of all of its in-map-warps. Whenever a new map becomes 
+ * the current map, those maps are loaded (and indexed) one at a time on
+ * a single worker thread. Anything still waiting to be loaded for the 
+ * previous map that is not next to the new map is cancelled. Nothing 
+ * here ever waits on the worker, so the game loop is never held up.
+ * 
+ * The prefetcher also counts warps to other maps, and how many of them 
+ * found their destination already loaded.
+ * 
+ * @author Adam Cogen
+ *
+ */
+public class SMapPrefetcher {
+	private SMapCache mapCache; //the cache that maps are loaded into
+	private ExecutorService worker; //the single background thread that loads maps
+	private Map<Integer, Future<?>> pending; //maps that have been asked for but may not be loaded yet, by map number
+	private Set<Integer> wanted; //the neighbors of the current map. a load that is no longer wanted is skipped
+	private int warps; //how many warps to other maps have happened
+	private int warpsReady; //how many of those warps found their destination map already loaded
+
+	/**
+	 * Create a prefetcher that loads maps into the specified cache.
+	 * @param cache the map cache to load maps into
+	 */
+	public SMapPrefetcher(SMapCache cache){
+		mapCache = cache;
+		pending = new HashMap<Integer, Future<?>>();
+		wanted = new HashSet<Integer>();
+		worker = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "map prefetcher");
+			thread.setDaemon(true); //never keep the game running just to finish a prefetch
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * Start loading every map that the specified map leads to, and cancel
+	 * any loads that were started for maps that it does not lead to.
+	 * Returns right away.
+	 * @param current the map that just became the current map
+	 */
+	public synchronized void prefetchNeighbors(SMap current){
+		Set<Integer> neighbors = new HashSet<Integer>();
+		neighbors.add(current.getEdgeWarpLeft());
+		neighbors.add(current.getEdgeWarpRight());
+		neighbors.add(current.getEdgeWarpUp());
+		neighbors.add(current.getEdgeWarpDown());
+		for (int i = 0; i < current.getWarpCount(); i++){
+			neighbors.add(current.getNormWarpValue(i, 0));
+		}
+		neighbors.remove(current.getMapNumber());
+
+		//cancel loads that have gone stale
+		wanted = neighbors;
+		Iterator<Map.Entry<Integer, Future<?>>> iterator = pending.entrySet().iterator();
+		while (iterator.hasNext()){
+			Map.Entry<Integer, Future<?>> entry = iterator.next();
+			if (entry.getValue().isDone()){
+				iterator.remove();
+			} else if (!neighbors.contains(entry.getKey())){
+				entry.getValue().cancel(false);
+				iterator.remove();
+			}
+		}
+
+		//start the new ones
+		for (int neighbor : neighbors){
+			if (pending.containsKey(neighbor) || mapCache.contains(neighbor) || !SFileRead.mapExists(neighbor)){
+				continue;
+			}
+			pending.put(neighbor, worker.submit(() -> {
+				if (isWanted(neighbor)){
+					mapCache.prefetch(neighbor);
+				}
+			}));
+		}
+	}
+
+	/**
+	 * check whether a map is still next to the current map.
+	 * @param mapNumber the map number to check
+	 * @return true if the map is still wanted
+	 */
+	private synchronized boolean isWanted(int mapNumber){
+		return wanted.contains(mapNumber);
+	}
+
+	/**
+	 * Record that the player is about to warp to another map. This should 
+	 * be called before the destination map is taken from the cache.
+	 * @param from the map the player is warping from
+	 * @param to the map the player is warping to
+	 */
+	public synchronized void recordWarp(int from, int to){
+		if (from == to){
+			return; //warps within the same map are always ready, so they are not counted
+		}
+		warps++;
+		if (mapCache.contains(to)){
+			warpsReady++;
+		}
+	}
+
+	/**
+	 * Return how many warps to other maps have happened.
+	 * @return int: the warp count
+	 */
+	public synchronized int getWarps(){
+		return warps;
+	}
+
+	/**
+	 * Return how many warps to other maps found their destination already loaded.
+	 * @return int: the count of warps that found their map ready
+	 */
+	public synchronized int getWarpsReady(){
+		return warpsReady;
+	}
+
+	/**
+	 * Stop the worker thread. Loads that have not started yet are dropped.
+	 */
+	public void shutdown(){
+		worker.shutdownNow();
+	}
+
+	/**
+	 * Return the warp counts as one line of text, for debugging.
+	 */
+	@Override
+	public synchronized String toString(){
+		return "map prefetcher: " + warpsReady + " of " + warps + " warps found their map already loaded";
+	}
+}
@@ -0,0 +1,102 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+/**
+ * The drawing code that the game (SGamePanel) and the map snapshots
+ * (SMapSnapshot) share: drawing a layer of a map's shapes, and drawing
+ * the character's hitbox. Both of them draw with these, so a snapshot
+ * always looks the same as the game does.
+ *
+ * The hitbox is a red box that shows the collision area of the player.
+ * The center dot marks the arm line, which is 1 pixel below the top of
+ * the climbability area. The bottom of the climbability area is the same
+ * as the collision area. It is used for debugging, and to program
+ * collision detection.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SMapRenderer {
+	public static final int LEFT_COLLISION_OFFSET = 1; //used to calibrate where the left side of the player is drawn, relative to its position
+	public static final int RIGHT_COLLISION_OFFSET = 8; //used to calibrate where the right side of the player is drawn, relative to its position
+	public static final int UP_COLLISION_OFFSET = -22; //used to calibrate where the top of the player is drawn, relative to its position
+	public static final int DOWN_COLLISION_OFFSET = -1; //used to calibrate where the bottom of the player is drawn, relative to its position
+	private static final Color HIT_BOX_COLOR = Color.red; //the color the hitbox is drawn in
+
+	/**
+	 * Draw one layer of a map's shapes.
+	 * @param g the graphics to draw with
+	 * @param table the shapes of the map
+	 * @param inFront true to draw the shapes that go in front of the character
+	 * (no-collision rectangles and ovals marked 2 and 4), false to draw the shapes that
+	 * go behind it (rectangles marked 0 and 1, and no-collision ovals marked 3)
+	 * @param shapes the numbers of the shapes to draw, in file order or in draw order
+	 * (see SRenderIndex.getDrawOrder()). shapes that are not in the layer are skipped
+	 */
+	public static void drawLayer(Graphics g, SShapeTable table, boolean inFront, int[] shapes){
+		int[] xs = table.getX();
+		int[] ys = table.getY();
+		int[] widths = table.getWidth();
+		int[] heights = table.getHeight();
+		int[] types = table.getCollision();
+		int[] colors = table.getColorIndex();
+		SPalette palette = table.getPalette();
+		int color = -1; //the palette number of the color g is set to
+		for (int i : shapes){
+			int type = types[i];
+			if (inFront ? (type != 2 && type != 4) : (type == 2 || type == 4 || type == 5)){
+				continue;
+			}
+			/*
+			 * the shape table has already corrected any colors that are
+			 * outside of the range 0 to 255 (no colors should be outside
+			 * of that range, but if for some reason they are, the game
+			 * will correct them and will still run), and put each color
+			 * in its palette once.
+			 */
+			if (colors[i] != color){
+				color = colors[i];
+				g.setColor(palette.getColor(color));
+			}
+			if (type == 3 || type == 4){
+				//no-collision ovals
+				g.fillOval(xs[i], ys[i], widths[i], heights[i]);
+			} else {
+				//rectangles
+				g.fillRect(xs[i], ys[i], widths[i], heights[i]);
+			}
+		}
+	}
+
+	/**
+	 * Draw the character's hitbox (see the comment at the top of this class).
+	 * @param g the graphics to draw with
+	 * @param charX the character's x position
+	 * @param charY the character's y position
+	 */
+	public static void drawHitBox(Graphics g, int charX, int charY){
+		g.setColor(HIT_BOX_COLOR);
+		//left
+		g.drawLine(charX + LEFT_COLLISION_OFFSET, charY + DOWN_COLLISION_OFFSET, charX + LEFT_COLLISION_OFFSET, charY + UP_COLLISION_OFFSET);
+		//right
+		g.drawLine(charX + RIGHT_COLLISION_OFFSET, charY + DOWN_COLLISION_OFFSET, charX + RIGHT_COLLISION_OFFSET, charY + UP_COLLISION_OFFSET);
+		//up
+		g.drawLine(charX + LEFT_COLLISION_OFFSET, charY + UP_COLLISION_OFFSET, charX + RIGHT_COLLISION_OFFSET, charY + UP_COLLISION_OFFSET);
+		//down
+		g.drawLine(charX + LEFT_COLLISION_OFFSET, charY + DOWN_COLLISION_OFFSET, charX + RIGHT_COLLISION_OFFSET, charY + DOWN_COLLISION_OFFSET);
+		//center dot (at arm line)
+		g.drawLine(charX + 4, charY + -10, charX + 5, charY + -10);
+	}
+
+	/**
+	 * Return the area that drawHitBox() draws in.
+	 * @param charX the character's x position
+	 * @param charY the character's y position
+	 * @return Rectangle: the pixels the hitbox covers
+	 */
+	public static Rectangle getHitBoxBounds(int charX, int charY){
+		return new Rectangle(charX + LEFT_COLLISION_OFFSET, charY + UP_COLLISION_OFFSET,
+				RIGHT_COLLISION_OFFSET - LEFT_COLLISION_OFFSET + 1, DOWN_COLLISION_OFFSET - UP_COLLISION_OFFSET + 1);
+	}
+}
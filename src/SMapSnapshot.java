@@ -0,0 +1,186 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import javax.swing.UIManager;
+
+/**
+ * Draws maps into images without a display, and saves them as PNG files,
+ * for comparing how maps look from one version to the next and for making
+ * thumbnails, on machines that have no screen (such as build servers).
+ *
+ * A snapshot is drawn the same way the game draws the first frame on a
+ * map: the background, the shapes that go behind the character, the
+ * character standing at the spawn point, then the shapes that go in front
+ * of it. The shapes and the hitbox are drawn by SMapRenderer, the same code
+ * the game uses. Two things the game does not show can be drawn on top:
+ * the character's hitbox (as SGamePanel draws it when showHitBox is on), and
+ * the warps (shapes with collision value 5), which are shaded in their own
+ * color and outlined.
+ *
+ * Run this class from the folder that contains the maps folder. With no
+ * map numbers as arguments, it draws every map in the maps folder, several
+ * at once (one per processor). Add --hitbox and --warps to draw those, and
+ * --out followed by a folder to save the images somewhere other than the
+ * snapshots folder. Each image is named after its map number.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SMapSnapshot {
+	private static final Color WARP_OUTLINE = Color.magenta; //the color warps are outlined in
+	private static final int WARP_ALPHA = 128; //how opaque warps are shaded, from 0 (not at all) to 255 (fully)
+
+	/**
+	 * Draw a snapshot of a map.
+	 * @param map the map to draw
+	 * @param showHitBox should the character's hitbox be drawn?
+	 * @param showWarps should the warps be drawn?
+	 * @return BufferedImage: the snapshot, the same size as the map
+	 */
+	public static BufferedImage render(SMap map, boolean showHitBox, boolean showWarps){
+		int width = Math.max(1, map.getFrameWidth());
+		int height = Math.max(1, map.getFrameHeight());
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		SShapeTable table = map.getShapeTable();
+		int[] all = new int[table.getCount()];
+		for (int i = 0; i < all.length; i++){
+			all[i] = i;
+		}
+		//the same order as SGamePanel.DrawPanel
+		Color background = UIManager.getColor("Panel.background");
+		g.setColor(background == null ? Color.lightGray : background);
+		g.fillRect(0, 0, width, height);
+		SMapRenderer.drawLayer(g, table, false, all);
+		int charX = map.getSpawnX();
+		int charY = map.getSpawnY();
+		Font font = UIManager.getFont("Panel.font");
+		SCharSprites.get(font == null ? new Font(Font.DIALOG, Font.PLAIN, 12) : font, Color.black).draw(g, 0, charX, charY);
+		if (showHitBox){
+			SMapRenderer.drawHitBox(g, charX, charY);
+		}
+		SMapRenderer.drawLayer(g, table, true, all);
+		if (showWarps){
+			drawWarps(g, table);
+		}
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * Shade and outline every warp (collision value 5) on top of everything else.
+	 */
+	private static void drawWarps(Graphics2D g, SShapeTable table){
+		for (int i = 0; i < table.getCount(); i++){
+			if (table.getCollision()[i] != 5){
+				continue;
+			}
+			int x = table.getX()[i];
+			int y = table.getY()[i];
+			int width = table.getWidth()[i];
+			int height = table.getHeight()[i];
+			g.setColor(new Color((WARP_ALPHA << 24) | table.getRgb()[i], true));
+			g.fillRect(x, y, width, height);
+			g.setColor(WARP_OUTLINE);
+			g.drawRect(x, y, Math.max(0, width - 1), Math.max(0, height - 1));
+		}
+	}
+
+	/**
+	 * Load a map, draw a snapshot of it, and save it as a PNG file.
+	 * @param mapNumber the number of the map
+	 * @param folder the folder to save the image in. it is named after the map number
+	 * @param showHitBox should the character's hitbox be drawn?
+	 * @param showWarps should the warps be drawn?
+	 * @return File: the saved image
+	 * @throws IOException if the image could not be saved
+	 */
+	public static File save(int mapNumber, File folder, boolean showHitBox, boolean showWarps) throws IOException {
+		BufferedImage image = render(SMapCache.load(mapNumber, false), showHitBox, showWarps);
+		File file = new File(folder, mapNumber + ".png");
+		if (!ImageIO.write(image, "png", file)){
+			throw new IOException("no PNG writer is available");
+		}
+		return file;
+	}
+
+	/**
+	 * Draw snapshots of maps. See the comment at the top of this class.
+	 * @param args the map numbers to draw, or nothing to draw every map in the maps folder,
+	 * plus optionally --hitbox, --warps and --out followed by a folder
+	 */
+	public static void main(String [] args){
+		System.setProperty("java.awt.headless", "true");
+		boolean showHitBox = false;
+		boolean showWarps = false;
+		File folder = new File("snapshots");
+		List<Integer> mapNumbers = new ArrayList<Integer>();
+		for (int a = 0; a < args.length; a++){
+			if (args[a].equals("--hitbox")){
+				showHitBox = true;
+			} else if (args[a].equals("--warps")){
+				showWarps = true;
+			} else if (args[a].equals("--out") && a + 1 < args.length){
+				folder = new File(args[++a]);
+			} else {
+				try {
+					mapNumbers.add(Integer.parseInt(args[a]));
+				} catch (NumberFormatException nfe){
+					System.out.println("not a map number: " + args[a]);
+				}
+			}
+		}
+		if (mapNumbers.isEmpty()){
+			File[] files = new File("maps").listFiles();
+			if (files == null){
+				System.out.println("no maps folder found in SMapSnapshot class main() method");
+				return;
+			}
+			for (File file : files){
+				String name = file.getName();
+				if (!name.endsWith(".txt")){
+					continue;
+				}
+				try {
+					mapNumbers.add(Integer.parseInt(name.substring(0, name.length() - 4)));
+				} catch (NumberFormatException nfe){
+					//not a map file, skip it
+				}
+			}
+			mapNumbers.sort(null);
+		}
+		folder.mkdirs();
+		//each map is loaded and drawn on its own, so they can all be drawn at the same time
+		ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<Future<File>> results = new ArrayList<Future<File>>();
+		for (int mapNumber : mapNumbers){
+			File out = folder;
+			boolean hitBox = showHitBox;
+			boolean warps = showWarps;
+			results.add(workers.submit(() -> save(mapNumber, out, hitBox, warps)));
+		}
+		int saved = 0;
+		for (int i = 0; i < results.size(); i++){
+			try {
+				results.get(i).get();
+				saved++;
+			} catch (ExecutionException ee){
+				System.out.println("could not draw map " + mapNumbers.get(i) + ": " + ee.getCause());
+			} catch (InterruptedException ie){
+				break;
+			}
+		}
+		workers.shutdown();
+		System.out.println("saved " + saved + " snapshots to " + folder);
+	}
+}
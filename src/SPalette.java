@@ -0,0 +1,108 @@
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The colors used by a map's shapes, each one stored once. Maps only use
+ * a handful of colors, but every shape has its own (r, g, b) values, so
+ * drawing used to make a new Color for every shape every time it was
+ * drawn. Instead, each distinct color gets a number in the palette when
+ * the map is loaded, and each shape keeps the number of its color (see
+ * SShapeTable.getColorIndex()).
+ *
+ * The Color objects themselves are interned across every palette: there
+ * is only ever one Color for each (r, g, b), no matter how many maps use
+ * it, and the map maker shares them too (see intern()).
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SPalette {
+	private static final ConcurrentHashMap<Integer, Color> INTERNED = new ConcurrentHashMap<Integer, Color>(); //the one Color for each packed 0xRRGGBB value that has been used
+	private HashMap<Integer, Integer> indexes = new HashMap<Integer, Integer>(); //the palette number of each packed color in this palette
+	private Color[] colors = new Color[8]; //the colors in this palette, by palette number
+	private int count; //how many colors are in this palette
+
+	/**
+	 * Return the shared Color for a packed color.
+	 * @param rgb the color, packed as 0xRRGGBB
+	 * @return Color: the one Color with that value
+	 */
+	public static Color intern(int rgb){
+		Color color = INTERNED.get(rgb);
+		if (color == null){
+			color = INTERNED.computeIfAbsent(rgb, Color::new);
+		}
+		return color;
+	}
+
+	/**
+	 * Return the shared Color for red, green and blue values. Values outside
+	 * of the range 0 to 255 are corrected to the nearest value inside it.
+	 * @param r the red value
+	 * @param g the green value
+	 * @param b the blue value
+	 * @return Color: the one Color with those values
+	 */
+	public static Color intern(int r, int g, int b){
+		return intern(pack(r, g, b));
+	}
+
+	/**
+	 * Pack red, green and blue values into one int, as 0xRRGGBB. Values
+	 * outside of the range 0 to 255 are corrected to the nearest value
+	 * inside it.
+	 * @param r the red value
+	 * @param g the green value
+	 * @param b the blue value
+	 * @return int: the packed color
+	 */
+	public static int pack(int r, int g, int b){
+		return (fixColorRange(r) << 16) | (fixColorRange(g) << 8) | fixColorRange(b);
+	}
+
+	/**
+	 * Correct any values that are not within the range 0 to 255, inclusive.
+	 * @param value The original value as an int
+	 * @return int: the value adjusted so that 0 <= value <= 255
+	 */
+	private static int fixColorRange(int value){
+		return Math.max(0, Math.min(255, value));
+	}
+
+	/**
+	 * Find a color's number in the palette, adding it if it is not there yet.
+	 * @param rgb the color, packed as 0xRRGGBB
+	 * @return int: the color's palette number
+	 */
+	public int add(int rgb){
+		Integer index = indexes.get(rgb);
+		if (index != null){
+			return index;
+		}
+		if (count == colors.length){
+			colors = Arrays.copyOf(colors, count * 2);
+		}
+		colors[count] = intern(rgb);
+		indexes.put(rgb, count);
+		return count++;
+	}
+
+	/**
+	 * Return a color in the palette.
+	 * @param index the color's palette number
+	 * @return Color: the color
+	 */
+	public Color getColor(int index){
+		return colors[index];
+	}
+
+	/**
+	 * Return how many colors are in the palette.
+	 * @return int: the number of distinct colors
+	 */
+	public int getCount(){
+		return count;
+	}
+}
@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A grid over the shapes of a map that are drawn (every shape except warps,
+ * collision value 5), for finding the shapes that cover part of the map
+ * without going through all of them. When only part of a map is on the
+ * screen, only the shapes found here need to be drawn.
+ *
+ * The grid works the same way as SMap's collision grid: the area covered
+ * by the shapes is cut into square cells, and each cell lists every shape
+ * that overlaps it, with all of the lists stored back to back in one array.
+ * Shapes are listed in file order, and getShapes() always returns them in
+ * file order, so that shapes found here are drawn over each other the
+ * same way they would be if every shape was drawn.
+ *
+ * The index can also work out an order to draw the shapes in that keeps
+ * shapes of the same color together, so that the color only has to be
+ * changed when it really changes (see getDrawOrder()).
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SRenderIndex {
+	private static final int CELL_SIZE = 64; //the width and height, in pixels, of each cell of the grid
+	private SShapeTable shapeTable; //the shapes being indexed
+	private int originX; //the left side of the grid, the leftmost side of any drawn shape
+	private int originY; //the top of the grid, the highest top of any drawn shape
+	private int columns; //how many columns of cells the grid has
+	private int rows; //how many rows of cells the grid has
+	private int[] cellStart; //where each cell's list begins within cellShapes. the shapes in cell c are cellShapes[cellStart[c]] up to (not including) cellShapes[cellStart[c + 1]]
+	private int[] cellShapes; //the shape numbers of every drawn shape, grouped by the cells they overlap
+	private int[] seen; //for each shape, the last query that found it, so that a shape in more than one cell is only returned once
+	private int query; //how many queries have been made, for seen
+	private int[] found; //the shapes found by the current query, reused between queries
+	private int[] drawOrder; //every drawn shape, grouped by color where that does not change what is seen. null until getDrawOrder() is called
+	private int[] drawRank; //where each shape is in drawOrder, or -1 for shapes that are not drawn
+
+	/**
+	 * Build the grid for a map's shapes.
+	 * @param table the shapes of the map
+	 */
+	public SRenderIndex(SShapeTable table){
+		shapeTable = table;
+		int count = table.getCount();
+		int[] xs = table.getX();
+		int[] ys = table.getY();
+		int[] widths = table.getWidth();
+		int[] heights = table.getHeight();
+		int left = Integer.MAX_VALUE;
+		int top = Integer.MAX_VALUE;
+		int right = Integer.MIN_VALUE;
+		int bottom = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++){
+			if (isDrawn(i)){
+				left = Math.min(left, xs[i]);
+				top = Math.min(top, ys[i]);
+				right = Math.max(right, xs[i] + widths[i]);
+				bottom = Math.max(bottom, ys[i] + heights[i]);
+			}
+		}
+		if (left > right){
+			//nothing is drawn
+			left = top = right = bottom = 0;
+		}
+		originX = left;
+		originY = top;
+		columns = (right - left) / CELL_SIZE + 1;
+		rows = (bottom - top) / CELL_SIZE + 1;
+		int cellCount = columns * rows;
+		/*
+		 * this is done in two passes, the same as SMap.buildGrid(). the first
+		 * pass counts how many shapes land in each cell, so that the second
+		 * pass can store every cell's list back to back in one array.
+		 */
+		int[] cellSize = new int[cellCount];
+		for (int pass = 0; pass < 2; pass++){
+			for (int i = 0; i < count; i++){
+				if (!isDrawn(i)){
+					continue;
+				}
+				int lastColumn = column(xs[i] + widths[i]);
+				int lastRow = row(ys[i] + heights[i]);
+				for (int row = row(ys[i]); row <= lastRow; row++){
+					for (int column = column(xs[i]); column <= lastColumn; column++){
+						int cell = row * columns + column;
+						if (pass == 1){
+							cellShapes[cellStart[cell] + cellSize[cell]] = i;
+						}
+						cellSize[cell]++;
+					}
+				}
+			}
+			if (pass == 0){
+				cellStart = new int[cellCount + 1];
+				for (int cell = 0; cell < cellCount; cell++){
+					cellStart[cell + 1] = cellStart[cell] + cellSize[cell];
+					cellSize[cell] = 0;
+				}
+				cellShapes = new int[cellStart[cellCount]];
+			}
+		}
+		seen = new int[count];
+		found = new int[Math.min(count, 64)];
+	}
+
+	/**
+	 * Is a shape drawn at all? Warps (collision value 5) never are.
+	 */
+	private boolean isDrawn(int i){
+		return shapeTable.getCollision()[i] != 5;
+	}
+
+	/**
+	 * Return which column of cells an x position is in, clamped to the grid.
+	 */
+	private int column(int x){
+		return Math.max(0, Math.min(columns - 1, (x - originX) / CELL_SIZE));
+	}
+
+	/**
+	 * Return which row of cells a y position is in, clamped to the grid.
+	 */
+	private int row(int y){
+		return Math.max(0, Math.min(rows - 1, (y - originY) / CELL_SIZE));
+	}
+
+	/**
+	 * Find every drawn shape that covers at least one pixel of a rectangle.
+	 * A shape covers the pixels from its x and y up to, but not including,
+	 * its x + width and y + height, the same as Graphics.fillRect().
+	 * @param x the left side of the rectangle
+	 * @param y the top of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 * @return int[]: the shape numbers, in file order
+	 */
+	public int[] getShapes(int x, int y, int width, int height){
+		if (width <= 0 || height <= 0 || cellShapes.length == 0){
+			return new int[0];
+		}
+		int[] xs = shapeTable.getX();
+		int[] ys = shapeTable.getY();
+		int[] widths = shapeTable.getWidth();
+		int[] heights = shapeTable.getHeight();
+		int right = x + width;
+		int bottom = y + height;
+		int foundCount = 0;
+		query++;
+		int lastColumn = column(right - 1);
+		int lastRow = row(bottom - 1);
+		for (int row = row(y); row <= lastRow; row++){
+			for (int column = column(x); column <= lastColumn; column++){
+				int cell = row * columns + column;
+				for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++){
+					int i = cellShapes[k];
+					if (seen[i] != query && xs[i] < right && xs[i] + widths[i] > x && ys[i] < bottom && ys[i] + heights[i] > y){
+						seen[i] = query;
+						if (foundCount == found.length){
+							found = Arrays.copyOf(found, found.length * 2);
+						}
+						found[foundCount++] = i;
+					}
+				}
+			}
+		}
+		Arrays.sort(found, 0, foundCount);
+		return Arrays.copyOf(found, foundCount);
+	}
+
+	/**
+	 * Return every drawn shape, in an order that groups shapes of the same
+	 * color together wherever it can. Two shapes only have to be drawn in
+	 * file order if they overlap and are different colors, since that is the
+	 * only time the order shows. Every other shape is free to move, so the
+	 * shapes are taken in file order, except that whenever a shape of the
+	 * color that was drawn last is free to go next, it goes next.
+	 * 
+	 * This is worked out the first time it is asked for, and kept.
+	 * @return int[]: the shape numbers, in the order to draw them
+	 */
+	public synchronized int[] getDrawOrder(){
+		if (drawOrder != null){
+			return drawOrder;
+		}
+		int count = shapeTable.getCount();
+		int[] colors = shapeTable.getColorIndex();
+		/*
+		 * each shape waits for the earlier shapes of other colors that it 
+		 * overlaps. waiting[j] counts them, and after[i] lists the shapes
+		 * waiting for shape i.
+		 */
+		int[] waiting = new int[count];
+		int[][] after = new int[count][];
+		int[] afterCount = new int[count];
+		for (int j = 0; j < count; j++){
+			if (!isDrawn(j)){
+				continue;
+			}
+			for (int i : getShapes(shapeTable.getX()[j], shapeTable.getY()[j], shapeTable.getWidth()[j], shapeTable.getHeight()[j])){
+				if (i >= j){
+					break;
+				}
+				if (colors[i] != colors[j]){
+					if (after[i] == null){
+						after[i] = new int[4];
+					} else if (afterCount[i] == after[i].length){
+						after[i] = Arrays.copyOf(after[i], afterCount[i] * 2);
+					}
+					after[i][afterCount[i]++] = j;
+					waiting[j]++;
+				}
+			}
+		}
+		/*
+		 * the shapes that are not waiting for anything, all together and by
+		 * color, each in file order. a shape is in both queues, and is left in
+		 * the other one when it is taken out of one, so shapes that have 
+		 * already been drawn are skipped when they come up.
+		 */
+		PriorityQueue<Integer> ready = new PriorityQueue<Integer>();
+		List<PriorityQueue<Integer>> readyByColor = new ArrayList<PriorityQueue<Integer>>();
+		for (int c = 0; c < shapeTable.getPalette().getCount(); c++){
+			readyByColor.add(new PriorityQueue<Integer>());
+		}
+		int total = 0;
+		for (int i = 0; i < count; i++){
+			if (isDrawn(i)){
+				total++;
+				if (waiting[i] == 0){
+					ready.add(i);
+					readyByColor.get(colors[i]).add(i);
+				}
+			}
+		}
+		drawOrder = new int[total];
+		drawRank = new int[count];
+		Arrays.fill(drawRank, -1);
+		int color = -1;
+		for (int drawn = 0; drawn < total; drawn++){
+			Integer next = color >= 0 ? nextReady(readyByColor.get(color)) : null;
+			if (next == null){
+				next = nextReady(ready);
+				color = colors[next];
+			}
+			int i = next;
+			drawRank[i] = drawn;
+			drawOrder[drawn] = i;
+			for (int k = 0; k < afterCount[i]; k++){
+				int j = after[i][k];
+				if (--waiting[j] == 0){
+					ready.add(j);
+					readyByColor.get(colors[j]).add(j);
+				}
+			}
+		}
+		return drawOrder;
+	}
+
+	/**
+	 * Take the first shape out of a queue of ready shapes that has not been
+	 * drawn yet (see getDrawOrder()).
+	 * @return Integer: the shape number, or null if there is none
+	 */
+	private Integer nextReady(PriorityQueue<Integer> queue){
+		while (!queue.isEmpty() && drawRank[queue.peek()] >= 0){
+			queue.poll();
+		}
+		return queue.poll();
+	}
+
+	/**
+	 * Put some shapes into the order given by getDrawOrder().
+	 * @param shapes shape numbers of drawn shapes, such as from getShapes(). they are reordered in place
+	 * @return int[]: shapes, now in draw order
+	 */
+	public int[] toDrawOrder(int[] shapes){
+		int[] order = getDrawOrder();
+		for (int k = 0; k < shapes.length; k++){
+			shapes[k] = drawRank[shapes[k]];
+		}
+		Arrays.sort(shapes);
+		for (int k = 0; k < shapes.length; k++){
+			shapes[k] = order[shapes[k]];
+		}
+		return shapes;
+	}
+}
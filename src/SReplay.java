@@ -0,0 +1,270 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A recording of a game, for playing it back exactly: the map it started
+ * on, where the player spawned, and for every tick, which keys were held
+ * down (and which were pressed since the tick before, even if they were
+ * released again) and where the player was after the tick. Since the simulation
+ * always does the same thing with the same input, playing the keys back
+ * into a new simulation (see SReplayPlayer) gives the same game again,
+ * and the positions show exactly where it stops doing so.
+ *
+ * Replay files are binary. The header is six ints: REPLAY_MAGIC,
+ * REPLAY_VERSION, the starting map number, the spawn x and y, and the
+ * number of ticks. Each tick is then one byte holding the INPUT_ bits
+ * (with MAP_CHANGED set if the map changed that tick, in which case the
+ * new map number follows as an int, and with KEYS_PRESSED set if any
+ * keys were pressed since the tick before, in which case they follow as
+ * one byte of INPUT_ bits), then how far the player moved along x and
+ * along y that tick, each as a variable length number. Most ticks take
+ * 3 bytes. Version 1 files have no pressed keys, and can still be read.
+ *
+ * Recording and saving are synchronized, so that a replay can be saved
+ * from a different thread than the one recording it (such as when the
+ * game is closed).
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SReplay {
+	public static final String REPLAY_EXTENSION = ".lrec"; //the file extension of replay files
+	public static final int REPLAY_MAGIC = 0x4C524543; //"LREC", the first 4 bytes of every replay file
+	public static final int REPLAY_VERSION = 2; //the version of the replay format
+	private static final int MAP_CHANGED = 0x80; //set in a tick's input byte when the map changed during that tick
+	private static final int KEYS_PRESSED = 0x40; //set in a tick's input byte when keys were pressed since the tick before
+	private int startMap; //the map the game started on
+	private int spawnX; //the player's x position before the first tick
+	private int spawnY; //the player's y position before the first tick
+	private int tickCount; //how many ticks have been recorded
+	private int[] inputs = new int[1024]; //the keys held down during each tick, as SSimulation INPUT_ bits
+	private int[] pressed = new int[1024]; //the keys pressed since the tick before each tick, even if they were released again, as SSimulation INPUT_ bits
+	private int[] maps = new int[1024]; //the map number after each tick
+	private int[] xs = new int[1024]; //the player's x position after each tick
+	private int[] ys = new int[1024]; //the player's y position after each tick
+
+	/**
+	 * Start a new recording.
+	 * @param startMap the map the game starts on
+	 * @param spawnX the player's x position before the first tick, as read from the map file
+	 * @param spawnY the player's y position before the first tick, as read from the map file
+	 */
+	public SReplay(int startMap, int spawnX, int spawnY){
+		this.startMap = startMap;
+		this.spawnX = spawnX;
+		this.spawnY = spawnY;
+	}
+
+	/**
+	 * Record one tick. Call this after each tick, with the input that
+	 * was given to the simulation for that tick.
+	 * @param input the keys held down during the tick, as SSimulation INPUT_ bits
+	 * @param pressedKeys the keys pressed since the tick before, even if they were released again, as SSimulation INPUT_ bits
+	 * @param map the map number after the tick
+	 * @param x the player's x position after the tick
+	 * @param y the player's y position after the tick
+	 */
+	public synchronized void record(int input, int pressedKeys, int map, int x, int y){
+		if (tickCount == inputs.length){
+			int capacity = tickCount * 2;
+			inputs = Arrays.copyOf(inputs, capacity);
+			pressed = Arrays.copyOf(pressed, capacity);
+			maps = Arrays.copyOf(maps, capacity);
+			xs = Arrays.copyOf(xs, capacity);
+			ys = Arrays.copyOf(ys, capacity);
+		}
+		inputs[tickCount] = input;
+		pressed[tickCount] = pressedKeys;
+		maps[tickCount] = map;
+		xs[tickCount] = x;
+		ys[tickCount] = y;
+		tickCount++;
+	}
+
+	/**
+	 * Write the replay to a file.
+	 * @param fileName the file to write
+	 * @throws IOException if the file could not be written
+	 */
+	public synchronized void save(String fileName) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))){
+			out.writeInt(REPLAY_MAGIC);
+			out.writeInt(REPLAY_VERSION);
+			out.writeInt(startMap);
+			out.writeInt(spawnX);
+			out.writeInt(spawnY);
+			out.writeInt(tickCount);
+			int map = startMap;
+			int x = spawnX;
+			int y = spawnY;
+			for (int t = 0; t < tickCount; t++){
+				boolean mapChanged = maps[t] != map;
+				out.writeByte(inputs[t] | (mapChanged ? MAP_CHANGED : 0) | (pressed[t] != 0 ? KEYS_PRESSED : 0));
+				if (mapChanged){
+					out.writeInt(maps[t]);
+				}
+				if (pressed[t] != 0){
+					out.writeByte(pressed[t]);
+				}
+				writeVarInt(out, xs[t] - x);
+				writeVarInt(out, ys[t] - y);
+				map = maps[t];
+				x = xs[t];
+				y = ys[t];
+			}
+		}
+	}
+
+	/**
+	 * Read a replay from a file.
+	 * @param fileName the file to read
+	 * @return SReplay: the replay
+	 * @throws IOException if the file could not be read, or is not a replay file
+	 */
+	public static SReplay load(String fileName) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))){
+			if (in.readInt() != REPLAY_MAGIC){
+				throw new IOException(fileName + " is not a replay file");
+			}
+			int version = in.readInt();
+			if (version != 1 && version != REPLAY_VERSION){
+				throw new IOException(fileName + " is replay version " + version + ", expected " + REPLAY_VERSION);
+			}
+			SReplay replay = new SReplay(in.readInt(), in.readInt(), in.readInt());
+			int ticks = in.readInt();
+			int map = replay.startMap;
+			int x = replay.spawnX;
+			int y = replay.spawnY;
+			for (int t = 0; t < ticks; t++){
+				int input = in.readUnsignedByte();
+				if ((input & MAP_CHANGED) != 0){
+					map = in.readInt();
+				}
+				int pressedKeys = 0;
+				if (version > 1 && (input & KEYS_PRESSED) != 0){
+					pressedKeys = in.readUnsignedByte();
+				}
+				x += readVarInt(in);
+				y += readVarInt(in);
+				replay.record(input & ~(MAP_CHANGED | KEYS_PRESSED), pressedKeys, map, x, y);
+			}
+			return replay;
+		} catch (EOFException eofe){
+			throw new IOException(fileName + " ends in the middle of a tick", eofe);
+		}
+	}
+
+	/**
+	 * Write a signed number in as few bytes as it needs: 7 bits per byte,
+	 * with the top bit set on every byte but the last. The sign is moved
+	 * into the lowest bit first, so that small negative numbers stay small.
+	 */
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		int zigzag = (value << 1) ^ (value >> 31);
+		while ((zigzag & ~0x7F) != 0){
+			out.writeByte((zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		out.writeByte(zigzag);
+	}
+
+	/**
+	 * Read a number written by writeVarInt().
+	 */
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int zigzag = 0;
+		for (int shift = 0; ; shift += 7){
+			int b = in.readUnsignedByte();
+			zigzag |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0 || shift >= 28){
+				break;
+			}
+		}
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+
+	/**
+	 * Return the map the game started on.
+	 * @return int: the starting map number
+	 */
+	public int getStartMap(){
+		return startMap;
+	}
+
+	/**
+	 * Return the player's x position before the first tick.
+	 * @return int: the spawn x position
+	 */
+	public int getSpawnX(){
+		return spawnX;
+	}
+
+	/**
+	 * Return the player's y position before the first tick.
+	 * @return int: the spawn y position
+	 */
+	public int getSpawnY(){
+		return spawnY;
+	}
+
+	/**
+	 * Return how many ticks have been recorded.
+	 * @return int: the tick count
+	 */
+	public synchronized int getTickCount(){
+		return tickCount;
+	}
+
+	/**
+	 * Return the keys held down during a tick.
+	 * @param tick the tick, counting from 0
+	 * @return int: the keys, as SSimulation INPUT_ bits
+	 */
+	public synchronized int getInput(int tick){
+		return inputs[tick];
+	}
+
+	/**
+	 * Return the keys pressed since the tick before a tick, even if they
+	 * were released again.
+	 * @param tick the tick, counting from 0
+	 * @return int: the keys, as SSimulation INPUT_ bits
+	 */
+	public synchronized int getPressed(int tick){
+		return pressed[tick];
+	}
+
+	/**
+	 * Return the map number after a tick.
+	 * @param tick the tick, counting from 0
+	 * @return int: the map number
+	 */
+	public synchronized int getMap(int tick){
+		return maps[tick];
+	}
+
+	/**
+	 * Return the player's x position after a tick.
+	 * @param tick the tick, counting from 0
+	 * @return int: the x position
+	 */
+	public synchronized int getX(int tick){
+		return xs[tick];
+	}
+
+	/**
+	 * Return the player's y position after a tick.
+	 * @param tick the tick, counting from 0
+	 * @return int: the y position
+	 */
+	public synchronized int getY(int tick){
+		return ys[tick];
+	}
+}
@@ -0,0 +1,206 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Measures how fast the simulation runs, by playing every replay in a
+ * folder (see SReplay) back without a display, as fast as possible, and
+ * timing each tick. For each replay, and for all of them together, it
+ * reports:
+ *
+ * ~   ticks per second, counting only the time spent inside ticks
+ * ~   the median (p50) and 99th percentile (p99) time a tick took
+ * ~   how many collision and climbability queries were made on the map
+ *     per tick (see SSimulation.getMapQueries())
+ * ~   how many maps were loaded from their files during the replay
+ *
+ * Each replay is played with its own empty map cache, so the map loads
+ * are the same every run, and are counted in the tick times the same way
+ * they are in the game. The replays are also checked the same way
+ * SReplayPlayer checks them: a replay that no longer matches is still
+ * timed to the end, but it is reported, since it is no longer measuring
+ * the same game it did before.
+ *
+ * Run this class from the folder that contains the maps folder, with the
+ * folder of replays as the first argument (the replays folder, if none
+ * is given). Add --warmup to play every replay once before timing them,
+ * so that the times are not slowed down by the JIT compiler warming up.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SReplayBenchmark {
+	private int ticks; //how many ticks have been timed
+	private long[] tickNanos = new long[1024]; //how long each tick took, in nanoseconds
+	private long mapQueries; //how many map queries were made during the timed ticks
+	private int mapLoads; //how many maps were loaded during the timed ticks
+	private int sessions; //how many replays have been timed
+	private int mismatches; //how many of the replays did not match
+
+	/**
+	 * Play a replay back as fast as possible, timing every tick, and add
+	 * the results to this benchmark.
+	 * @param replay the replay to play
+	 * @return int: the first tick that did not match the replay, or -1 if every tick matched
+	 */
+	public int run(SReplay replay){
+		SMapCache mapCache = new SMapCache(true);
+		SReplayPlayer player = new SReplayPlayer(replay, mapCache);
+		long start = System.nanoTime();
+		SSimulation simulation = player.start();
+		long loadNanos = System.nanoTime() - start; //loading the starting map counts toward the first tick, the same as it would in the game
+		long queriesBefore = simulation.getMapQueries();
+		int tickCount = replay.getTickCount();
+		if (ticks + tickCount > tickNanos.length){
+			tickNanos = Arrays.copyOf(tickNanos, Math.max(tickNanos.length * 2, ticks + tickCount));
+		}
+		for (int tick = 0; tick < tickCount; tick++){
+			long tickStart = System.nanoTime();
+			player.step(tick);
+			tickNanos[ticks++] = System.nanoTime() - tickStart + loadNanos;
+			loadNanos = 0;
+		}
+		mapLoads += mapCache.getMisses();
+		mapQueries += simulation.getMapQueries() - queriesBefore;
+		sessions++;
+		if (player.getMismatchTick() >= 0){
+			mismatches++;
+		}
+		return player.getMismatchTick();
+	}
+
+	/**
+	 * Add the results of another benchmark to this one.
+	 * @param other the benchmark to add
+	 */
+	public void add(SReplayBenchmark other){
+		if (ticks + other.ticks > tickNanos.length){
+			tickNanos = Arrays.copyOf(tickNanos, Math.max(tickNanos.length * 2, ticks + other.ticks));
+		}
+		System.arraycopy(other.tickNanos, 0, tickNanos, ticks, other.ticks);
+		ticks += other.ticks;
+		mapQueries += other.mapQueries;
+		mapLoads += other.mapLoads;
+		sessions += other.sessions;
+		mismatches += other.mismatches;
+	}
+
+	/**
+	 * Return how many ticks have been timed.
+	 * @return int: the tick count
+	 */
+	public int getTicks(){
+		return ticks;
+	}
+
+	/**
+	 * Return how many ticks were played per second, counting only the
+	 * time spent inside the ticks.
+	 * @return double: ticks per second
+	 */
+	public double getTicksPerSecond(){
+		long total = 0;
+		for (int i = 0; i < ticks; i++){
+			total += tickNanos[i];
+		}
+		return total == 0 ? 0 : ticks * 1e9 / total;
+	}
+
+	/**
+	 * Return how long a tick took, at a percentile of all the timed ticks.
+	 * @param percentile the percentile, from 0 to 100. 50 is the median
+	 * @return long: the tick time, in nanoseconds
+	 */
+	public long getTickNanos(int percentile){
+		if (ticks == 0){
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(tickNanos, ticks);
+		Arrays.sort(sorted);
+		return sorted[(int) ((ticks - 1) * (long) percentile / 100)];
+	}
+
+	/**
+	 * Return how many map queries were made per tick, on average.
+	 * @return double: queries per tick
+	 */
+	public double getQueriesPerTick(){
+		return ticks == 0 ? 0 : (double) mapQueries / ticks;
+	}
+
+	/**
+	 * Return how many maps were loaded per replay, on average.
+	 * @return double: map loads per session
+	 */
+	public double getMapLoadsPerSession(){
+		return sessions == 0 ? 0 : (double) mapLoads / sessions;
+	}
+
+	/**
+	 * Return how many of the timed replays did not match.
+	 * @return int: the number of replays that did not match
+	 */
+	public int getMismatches(){
+		return mismatches;
+	}
+
+	/**
+	 * @return one line with the results, to go under the heading printed by main()
+	 */
+	@Override
+	public String toString(){
+		return String.format("%10d %12.0f %9.1f %9.1f %12.2f %10.2f", ticks, getTicksPerSecond(),
+				getTickNanos(50) / 1000.0, getTickNanos(99) / 1000.0, getQueriesPerTick(), getMapLoadsPerSession());
+	}
+
+	/**
+	 * Benchmark a folder of replays. See the comment at the top of this class.
+	 * @param args the folder of replays, and optionally --warmup
+	 */
+	public static void main(String [] args){
+		String folderName = "replays";
+		boolean warmup = false;
+		for (String arg : args){
+			if (arg.equals("--warmup")){
+				warmup = true;
+			} else {
+				folderName = arg;
+			}
+		}
+		File[] files = new File(folderName).listFiles((dir, name) -> name.endsWith(SReplay.REPLAY_EXTENSION));
+		if (files == null || files.length == 0){
+			System.out.println("no replays found in " + folderName);
+			System.exit(1);
+		}
+		Arrays.sort(files);
+		SReplay[] replays = new SReplay[files.length];
+		try {
+			for (int i = 0; i < files.length; i++){
+				replays[i] = SReplay.load(files[i].getPath());
+			}
+		} catch (IOException ioe){
+			System.out.println("could not read replay: " + ioe.getMessage());
+			System.exit(1);
+		}
+		if (warmup){
+			for (SReplay replay : replays){
+				new SReplayBenchmark().run(replay);
+			}
+		}
+		System.out.println("collision kernel: " + SCollisionKernel.get().getName());
+		System.out.println(String.format("%-24s %10s %12s %9s %9s %12s %10s", "replay", "ticks", "ticks/s", "p50 us", "p99 us", "queries/tick", "map loads"));
+		SReplayBenchmark total = new SReplayBenchmark();
+		for (int i = 0; i < replays.length; i++){
+			SReplayBenchmark session = new SReplayBenchmark();
+			int mismatchTick = session.run(replays[i]);
+			total.add(session);
+			System.out.println(String.format("%-24s ", files[i].getName()) + session
+					+ (mismatchTick >= 0 ? "   did not match from tick " + mismatchTick : ""));
+		}
+		System.out.println(String.format("%-24s ", "total") + total);
+		if (total.getMismatches() > 0){
+			System.out.println(total.getMismatches() + " of " + replays.length + " replays did not match");
+			System.exit(1);
+		}
+	}
+}
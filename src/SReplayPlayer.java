@@ -0,0 +1,147 @@
+import java.io.IOException;
+
+/**
+ * Plays a replay (see SReplay) back into a new simulation, without a
+ * display, and checks that the player ends up in the same place on the
+ * same map after every tick as it did when the replay was recorded.
+ * The first tick that does not match is reported, since everything after
+ * it is likely to be different as well.
+ *
+ * Playback can run as fast as possible, or in real time (one tick every
+ * SGameLoop.TICK_MILLIS), for watching it happen at the same speed as
+ * the original game, with a profiler for example.
+ *
+ * Run this class from the folder that contains the maps folder, with the
+ * replay file as the first argument. Add --realtime to play it back in
+ * real time.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SReplayPlayer {
+	private SReplay replay; //the replay to play back
+	private SMapCache mapCache; //where the simulation loads its maps from
+	private SSimulation simulation; //the simulation the replay is played into
+	private int mismatchTick = -1; //the first tick that did not match the replay, or -1 if they all have
+	private String mismatch; //what did not match on mismatchTick
+
+	/**
+	 * Get ready to play a replay back.
+	 * @param replay the replay to play back
+	 * @param cache where to load maps from
+	 */
+	public SReplayPlayer(SReplay replay, SMapCache cache){
+		this.replay = replay;
+		mapCache = cache;
+	}
+
+	/**
+	 * Play the whole replay back into a new simulation.
+	 * @param realTime true to play one tick every SGameLoop.TICK_MILLIS, false to play as fast as possible
+	 * @return boolean: true if every tick matched the replay, false if one did not (see getMismatchTick())
+	 * @throws InterruptedException if the thread is interrupted while waiting for the next tick in real time
+	 */
+	public boolean play(boolean realTime) throws InterruptedException {
+		start();
+		long nextTick = System.nanoTime();
+		for (int tick = 0; tick < replay.getTickCount(); tick++){
+			if (realTime){
+				nextTick += SGameLoop.TICK_MILLIS * 1000000L;
+				long sleepNanos = nextTick - System.nanoTime();
+				if (sleepNanos > 0){
+					Thread.sleep(sleepNanos / 1000000L, (int) (sleepNanos % 1000000L));
+				}
+			}
+			if (!step(tick)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create the simulation on the replay's starting map, and check that
+	 * the player spawns where it did when the replay was recorded. If it
+	 * does not, the map file has probably changed since then.
+	 * @return SSimulation: the new simulation
+	 */
+	public SSimulation start(){
+		simulation = new SSimulation(mapCache, replay.getStartMap(), null);
+		mismatchTick = -1;
+		mismatch = null;
+		SChar sChar = simulation.getChar();
+		if (sChar.getX() != replay.getSpawnX() || sChar.getY() != replay.getSpawnY()){
+			mismatchTick = 0;
+			mismatch = "spawned at " + sChar.getX() + "," + sChar.getY() + " instead of " + replay.getSpawnX() + "," + replay.getSpawnY();
+		}
+		return simulation;
+	}
+
+	/**
+	 * Play one tick of the replay into the simulation made by start(), and
+	 * check it against the replay.
+	 * @param tick the tick to play, counting from 0. ticks must be played in order
+	 * @return boolean: true if the tick matched (and every tick before it did), false otherwise
+	 */
+	public boolean step(int tick){
+		simulation.setInput(replay.getInput(tick), replay.getPressed(tick));
+		simulation.tick();
+		if (mismatchTick >= 0){
+			return false;
+		}
+		SChar sChar = simulation.getChar();
+		if (simulation.getMapNumber() != replay.getMap(tick) || sChar.getX() != replay.getX(tick) || sChar.getY() != replay.getY(tick)){
+			mismatchTick = tick;
+			mismatch = "at map " + simulation.getMapNumber() + " " + sChar.getX() + "," + sChar.getY()
+					+ " instead of map " + replay.getMap(tick) + " " + replay.getX(tick) + "," + replay.getY(tick);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return the first tick that did not match the replay.
+	 * @return int: the tick, or -1 if every tick played so far has matched
+	 */
+	public int getMismatchTick(){
+		return mismatchTick;
+	}
+
+	/**
+	 * Return what did not match on the first tick that did not match the replay.
+	 * @return String: a description of the mismatch, or null if every tick played so far has matched
+	 */
+	public String getMismatch(){
+		return mismatch;
+	}
+
+	/**
+	 * Play a replay file back. See the comment at the top of this class.
+	 * @param args the replay file, and optionally --realtime
+	 */
+	public static void main(String [] args){
+		if (args.length < 1){
+			System.out.println("usage: SReplayPlayer <replay file> [--realtime]");
+			return;
+		}
+		boolean realTime = args.length > 1 && args[1].equals("--realtime");
+		try {
+			SReplay replay = SReplay.load(args[0]);
+			SReplayPlayer player = new SReplayPlayer(replay, new SMapCache(true));
+			long start = System.nanoTime();
+			boolean matched = player.play(realTime);
+			long millis = (System.nanoTime() - start) / 1000000L;
+			if (matched){
+				System.out.println("played " + replay.getTickCount() + " ticks in " + millis + " ms, every tick matched");
+			} else {
+				System.out.println("tick " + player.getMismatchTick() + " did not match: " + player.getMismatch());
+				System.exit(1);
+			}
+		} catch (IOException ioe){
+			System.out.println("could not read replay " + args[0] + ": " + ioe.getMessage());
+			System.exit(1);
+		} catch (InterruptedException ie){
+			System.out.println("playback interrupted");
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * The shapes of a map, stored as one array per value instead of one array
+ * per shape. The map file's shape data (int[shapeCount][9]) is copied into
+ * these columns once when the map is loaded, so that the loops that check
+ * every shape read straight down a few flat arrays.
+ *
+ * Shapes are normalized as they are copied: a shape with a negative width
+ * or height is flipped so that its x and y are its left and top sides,
+ * and its width and height are never negative. Colors are clamped to the
+ * range 0 to 255 and packed into one int, and each distinct color is
+ * given a number in the table's palette (see SPalette), so that drawing
+ * never has to make Color objects.
+ *
+ * The table also keeps two lists of shape numbers, in file order: the
+ * solid shapes (collision value 1) and the climbable shapes (climbability
+ * 1, 2, 3 or an in-map-warp), so that collision and climbability checks
+ * only go through the shapes that can matter to them.
+ *
+ * None of the arrays returned by this class should be changed.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SShapeTable {
+	private int count; //how many shapes there are
+	private int[] x; //the left side of each shape
+	private int[] y; //the top side of each shape
+	private int[] width; //the width of each shape, never negative
+	private int[] height; //the height of each shape, never negative
+	private int[] collision; //the collision value of each shape (0 to 5, see the map file format)
+	private int[] climb; //the climbability value of each shape (0 to 3, or an in-map-warp number + 10)
+	private int[] rgb; //the color of each shape, packed as 0xRRGGBB
+	private int[] colorIndex; //the palette number of each shape's color
+	private SPalette palette = new SPalette(); //each distinct color used by the shapes, once
+	private int[] solidShapes; //the shape numbers of the solid shapes, in file order
+	private int[] climbableShapes; //the shape numbers of the climbable shapes, in file order
+
+	/**
+	 * Copy shape data into a new table.
+	 * @param shapeData the shape data, as read from the map file
+	 * @param shapeCount how many shapes to copy from shapeData
+	 */
+	public SShapeTable(int[][] shapeData, int shapeCount){
+		count = shapeCount;
+		x = new int[count];
+		y = new int[count];
+		width = new int[count];
+		height = new int[count];
+		collision = new int[count];
+		climb = new int[count];
+		rgb = new int[count];
+		colorIndex = new int[count];
+		int solidCount = 0;
+		int climbableCount = 0;
+		for (int i = 0; i < count; i++){
+			int[] shape = shapeData[i];
+			x[i] = Math.min(shape[0], shape[0] + shape[2]);
+			y[i] = Math.min(shape[1], shape[1] + shape[3]);
+			width[i] = Math.abs(shape[2]);
+			height[i] = Math.abs(shape[3]);
+			collision[i] = shape[4];
+			climb[i] = shape[5];
+			rgb[i] = SPalette.pack(shape[6], shape[7], shape[8]);
+			colorIndex[i] = palette.add(rgb[i]);
+			if (isSolid(i)){
+				solidCount++;
+			}
+			if (isClimbable(i)){
+				climbableCount++;
+			}
+		}
+		solidShapes = new int[solidCount];
+		climbableShapes = new int[climbableCount];
+		solidCount = 0;
+		climbableCount = 0;
+		for (int i = 0; i < count; i++){
+			if (isSolid(i)){
+				solidShapes[solidCount++] = i;
+			}
+			if (isClimbable(i)){
+				climbableShapes[climbableCount++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Is a shape solid?
+	 * @param i the shape number
+	 * @return true if the shape has collision value 1
+	 */
+	public boolean isSolid(int i){
+		return collision[i] == 1;
+	}
+
+	/**
+	 * Is a shape climbable? Water and in-map-warps count as climbable.
+	 * @param i the shape number
+	 * @return true if the shape has climbability 1, 2 or 3, or is an in-map-warp
+	 */
+	public boolean isClimbable(int i){
+		return climb[i] == 1 || climb[i] == 2 || climb[i] == 3 || climb[i] >= 10;
+	}
+
+	/**
+	 * Return how many shapes there are.
+	 * @return int: the shape count
+	 */
+	public int getCount(){
+		return count;
+	}
+
+	/**
+	 * Return the left side of every shape.
+	 * @return int[]: the x column, indexed by shape number
+	 */
+	public int[] getX(){
+		return x;
+	}
+
+	/**
+	 * Return the top side of every shape.
+	 * @return int[]: the y column, indexed by shape number
+	 */
+	public int[] getY(){
+		return y;
+	}
+
+	/**
+	 * Return the width of every shape.
+	 * @return int[]: the width column, indexed by shape number
+	 */
+	public int[] getWidth(){
+		return width;
+	}
+
+	/**
+	 * Return the height of every shape.
+	 * @return int[]: the height column, indexed by shape number
+	 */
+	public int[] getHeight(){
+		return height;
+	}
+
+	/**
+	 * Return the collision value of every shape.
+	 * @return int[]: the collision column, indexed by shape number
+	 */
+	public int[] getCollision(){
+		return collision;
+	}
+
+	/**
+	 * Return the climbability value of every shape.
+	 * @return int[]: the climbability column, indexed by shape number
+	 */
+	public int[] getClimb(){
+		return climb;
+	}
+
+	/**
+	 * Return the color of every shape, packed as 0xRRGGBB.
+	 * @return int[]: the color column, indexed by shape number
+	 */
+	public int[] getRgb(){
+		return rgb;
+	}
+
+	/**
+	 * Return the palette number of every shape's color.
+	 * @return int[]: the palette number column, indexed by shape number
+	 */
+	public int[] getColorIndex(){
+		return colorIndex;
+	}
+
+	/**
+	 * Return the palette of the shapes' colors.
+	 * @return SPalette: the palette
+	 */
+	public SPalette getPalette(){
+		return palette;
+	}
+
+	/**
+	 * Return the shape numbers of the solid shapes, in file order.
+	 * @return int[]: the solid shape numbers
+	 */
+	public int[] getSolidShapes(){
+		return solidShapes;
+	}
+
+	/**
+	 * Return the shape numbers of the climbable shapes, in file order.
+	 * @return int[]: the climbable shape numbers
+	 */
+	public int[] getClimbableShapes(){
+		return climbableShapes;
+	}
+}
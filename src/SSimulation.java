@@ -0,0 +1,1085 @@
+/**
+ * The simulation of a game of Littleman: the current map, the player, 
+ * movement, jumping, gravity, climbing and warps, with nothing to do with
+ * drawing or the keyboard. It does not use AWT or Swing at all, so it can 
+ * run without a display, and many simulations can run in one program. 
+ * 
+ * The simulation only moves forward when tick() is called. Each tick is
+ * SGameLoop.TICK_MILLIS of game time, but ticks can be called as fast as
+ * they like, so the game can run faster than real time (for testing, for
+ * example). Which keys are held down is passed in with setInput(), as a
+ * bitmask of INPUT_ bits, and the simulation samples it at the start of
+ * every tick. Keys that were pressed since the last tick are passed in
+ * too, so that a key pressed and released again between two ticks still
+ * counts as pressed.
+ * 
+ * The SGame runs a simulation in a window, ticking it with the game loop
+ * and drawing it with the SGamePanel.
+ *
+ * @author Adam Cogen
+ *
+ */
+public class SSimulation {
+	public static final int INPUT_LEFT = 1; //input bit for the left arrow key
+	public static final int INPUT_UP = 2; //input bit for the up arrow key
+	public static final int INPUT_RIGHT = 4; //input bit for the right arrow key
+	public static final int INPUT_DOWN = 8; //input bit for the down arrow key
+	public static final int INPUT_SHIFT = 16; //input bit for the shift key (used for debugging)
+	private int map; //current map number
+	private SMapCache mapCache; //where maps are loaded from. can be shared between simulations
+	private MapListener mapListener; //told whenever the map changes, or null
+	private SMap sMap; //the class that will store map data 
+	private SChar sChar; //the class that will store information about the player and the sprite
+	private int moveSize; //used to check collision before moving to a new location that is distance moveSize away
+	private int jumpStep; //keeps track of which step of the jump animation the player is on during jumps
+	private STickTimer jumpTimer; //the timer which will start during jumps, starting the jump animation 
+	private STickTimer fallTimer; //the timer that will start while falling short distances. at a certain speed, a different faster timer starts
+	private STickTimer fastFallTimer; //the faster timer, which handles falling over longer distances and at higher speed
+	boolean fastFall = false; //is the fast fall timer running? if so, this will be true. otherwise, false.
+	private int partialJumpHeight; // one third of the jump height, used to increment char Y on each step of jumpTimer, which has three steps.
+	private int partialMoveSize; //one third of total move size
+	private int edgeWarpOffsetL = 15; //used to calibrate the position of edge warp on the left side of the map
+	private int edgeWarpOffsetR = 5; //used to calibrate the position of edge warp on the right side of the map
+	private int edgeWarpOffsetU = 2; //used to calibrate the position of edge warp at the top of the map
+	private int edgeWarpOffsetD = 22; //used to calibrate the position of edge warp at the bottom of the map
+	private int leftCollisionOffset = 1; //used to fix the discrepancy between the player's x position and its left side, for collision etc.
+	private int rightCollisionOffset = 8; //used to fix the discrepancy between the player's x position and its right side, for collision etc.
+	private int upCollisionOffset = -22; //used to fix the discrepancy between the player's y position and its top, for collision etc.
+	private int downCollisionOffset = -1; //used to fix the discrepancy between the player's y position and its bottom, for collision etc.
+	private boolean moving = false; //is the player moving? true when arrow key(s) being pressed
+	private STickTimer moveTimer; //timer to move the player while arrow key(s) being pressed
+	private int input; //the keys being held down, as INPUT_ bits. set with setInput(), and sampled at the start of every tick
+	private int previousInput; //the input as it was sampled at the start of the last tick, for finding which keys were just pressed
+	private int pressedInput; //the keys pressed since the last tick, even if they have been released again, as INPUT_ bits. set with setInput(), and cleared at the start of every tick
+	private int heldKeys; //the arrow keys the player is moving with, as INPUT_ bits. an arrow key pressed while the opposite one is held is not moved with until the opposite one is released
+	private static final int MOVE_TIMER_FREQUENCY = 100; //how often does the moveTimer tick? determines how quickly the character will move when holding down an arrow key
+	private long mapQueries; //how many collision and climbability queries the simulation has made on its maps, for benchmarking (see SReplayBenchmark)
+	private int downSlow = 0; //this will be used so that the in the moveTimer, the move() method will only be called in the down direction every other timer tick. this is simply to make the downward movement slower. 
+	/*
+	 * how acceleration-due-to-gravity works:
+	 * ~   gravityStart = GRAVITY_INITIAL_SPEED;
+	 * ~   every fallTimer clock tick, use a while loop to 
+	 *     move down 1 pixel (int)(gravityStart / GRAVITY_DIVIDER) times.
+	 * ~   every iteration through the while loop, gravityStart increments
+	 *     by GRAVITY_ACCELERATION, so that the value of 
+	 *     (int)(gravityStart / GRAVITY_DIVIDER) becomes larger every clock tick. 
+	 *     this means that for every clock tick, the player moves down 1 pixel at
+	 *     time, a greater number of times (the while loops runs more times).
+	 *~    gravityStart will stop incrementing once 
+	 *     (int)(gravityStart / GRAVITY_DIVIDER) equals TERMINAL_VELOCITY.
+	 *~    every time the player hits water, climbable, or solid ground, 
+	 *     the variable gravityStart resets back to GRAVITY_INITIAL_SPEED
+	 *     because their fall is broken.
+	 *     FALL_TIMER_FREQUENCY and JUMP_TIMER_FREQUENCY are the time in milliseconds
+	 *     between clock ticks of the fall timer and jump timer.
+	 *~    the boolean field normWarpResetsGravity determines whether going through
+	 *     an in-map warp resets your fall speed back to the initial value.
+	 *     if this is false, you will reach terminal velocity and continue 
+	 *     falling at that speed until your fall is broken, even if you reach
+	 *     an in-map warp.
+	 *~    the boolean field edgeWarpResetsGravity determines the same thing,
+	 *     but for edge warps (e.g. 'down') instead of in-map warps. 
+	 *~    to turn off acceleration-due-to-gravity, make sure that 
+	 *     GRAVITY_INITIAL_SPEED / GRAVITY_DIVIDER = 2 and 
+	 *     GRAVITY_ACCLERATION = 0.
+	 *~    Default values for gravity-on: initial_speed = 4, divider = 2,
+	 *     acceleration = .2, fall and jump timers = 120, terminal velocity = 15,
+	 *     normWarpResets = false, edgeWarpResets = false.
+	 *     
+	 *     new notes, about fast fall timer: 
+	 *     all of the above is still true, except now the values to change to adjust 
+	 *     gravity are the lower set of values, the "fastFallTimer stuff."
+	 *     the normal-speed fall is characterised by 120 millisecond increments.
+	 *     so when the player is on the ground and they jump up then land right away,
+	 *     the way up is drawn in 120 millisecond increments, and so is the way down.
+	 *     the problem was that once the player started accelerating, the 120
+	 *     milllisecond increments weren't enough for the faster falling, so the player
+	 *     appeared to "lag," or move too fast, with large spatial gaps between 
+	 *     each time he was redrawn. simply changing the original fallTimer 
+	 *     increments to a faster time meant that a jump-then-land, on solid 
+	 *     ground, looked very weird: the way up was 120 millisecond increments, and
+	 *     the way down was 30 millisecond increments, so it looked too high resolution.
+	 *     fastFall is a new feature which preserves the asthetic of the older,
+	 *     slower fall, while still allowing for acceleration that does not cause 
+	 *     the falling player to look "laggy." it does this by turning off the original
+	 *     fallTimer after the player reaches a certain speed, and instead turning on 
+	 *     fastFallTimer, which operates in 30 millisecond increments instead of
+	 *     120 millisecond increments. 
+	 */
+	private static final double GRAVITY_INITIAL_SPEED = 4; //real intitial speed is (int)(GRAVITY_INITIAL_SPEED / GRAVITY_DIVIDER)
+	private double gravityStart = GRAVITY_INITIAL_SPEED; //gravityStart will be incremented to increase fall speed over time
+	private static final double GRAVITY_DIVIDER = 2;  //actual initial speed will be (int)(GRAVITY_INITIAL_SPEED / GRAVITY_DIVIDER)
+	private static final double GRAVITY_ACCELERATION = .2; //gravityStart increments by this much with every clock tick, speeding up fall over time
+	private static final int FALL_TIMER_FREQUENCY = 120; //frequency of fallTimer in milliseconds
+	private static final int JUMP_TIMER_FREQUENCY = 120; //frequency of jumpTimer in milliseconds
+	private boolean normWarpResetsGravity = false; //setting. does an in-map-warp reset fall speed? 
+	private boolean edgeWarpResetsGravity = false; //setting. does an edge-warp reset fall speed?
+
+	//fastFallTimer stuff:
+	private static final int FAST_FALL_TIMER_FREQUENCY = 30; //frequency of the fastFallTimer, for faster fall speeds
+	private static final double FAST_GRAVITY_INITIAL_SPEED = 9; //real intitial speed is (int)(FAST_GRAVITY_INITIAL_SPEED / FAST_GRAVITY_DIVIDER)
+	private double fastGravityStart = FAST_GRAVITY_INITIAL_SPEED; //fastGravityStart will be incremented to increase fall speed over time
+	private static final double FAST_GRAVITY_DIVIDER = 6;  //real intitial speed is (int)(FAST_GRAVITY_INITIAL_SPEED / FAST_GRAVITY_DIVIDER)
+	private static final double FAST_GRAVITY_ACCELERATION = .2; //fastGravityStart increments by this much with every clock tick, speeding upfall over time
+	int accelCount = 1; //accelCount increments until it equals accelAt, at which point fast fall speed accelerates by FAST_GRAVITY_ACCELERATION
+	int accelAt = 1; //can be chan
+
+	private static final int TERMINAL_VELOCITY = 8; //terminal velocity (in pixels-per-fastFallTimer-clock-tick)
+	private static final int FALL_CHECK_DISTANCE = TERMINAL_VELOCITY + 2; //how far below the player canFall() and freeFallDistance() look at once. enough for one tick of falling at terminal velocity
+	private int mapChanges; //how many times the map has changed (counting in-map-warps to the same map). used to know when a remembered ground check is out of date
+	private int fallCheckMapChanges = -1; //the value of mapChanges when canFall() last looked for the ground
+	private int fallCheckX; //the player's x position when canFall() last looked for the ground
+	private int fallCheckY; //the player's y position when canFall() last looked for the ground
+	private int fallGroundY; //the first solid row at or below fallCheckY, or the end of the distance that was checked
+	private boolean fallGroundFound; //did canFall() find the ground within the distance it checked?
+	private int climbCheckMapChanges = -1; //the value of mapChanges when checkClimb() last checked the climbability box
+	private int climbCheckX; //the player's x position when checkClimb() last checked the climbability box
+	private int climbCheckY; //the player's y position when checkClimb() last checked the climbability box
+	private int climbCheckPriority; //what checkClimb() found the last time it checked the climbability box
+
+	/**
+	 * Something that wants to know when the simulation changes maps, 
+	 * such as the SGame, which has to draw the new map.
+	 */
+	public interface MapListener {
+		/**
+		 * Called just before the simulation changes maps.
+		 * @param from the number of the map being left
+		 * @param to the number of the map being changed to
+		 */
+		void mapChanging(int from, int to);
+
+		/**
+		 * Called right after the simulation has changed maps.
+		 * @param newMap the new current map
+		 */
+		void mapChanged(SMap newMap);
+	}
+
+	/**
+	 * Start a simulation on the specified map, with the player at its spawn point.
+	 * @param cache where to load maps from
+	 * @param mapNumber the map to start on
+	 * @param listener told whenever the map changes, including the first map. can be null.
+	 */
+	public SSimulation(SMapCache cache, int mapNumber, MapListener listener) {
+		partialJumpHeight = 1;
+		partialMoveSize = 1;
+		jumpStep = 3;
+		moveSize = 3;
+
+		mapCache = cache;
+		mapListener = listener;
+		sChar = new SChar();
+		changeMap(mapNumber); //initializes necessary classes and information to load a map, put into a method for use with both constructor and warps
+		setCharX(sMap.getSpawnX());
+		setCharY(sMap.getSpawnY());
+
+		/**
+		 * Timer listener is involved with the 'up' direction of moveChar.
+		 * Reads and increments the jumpStep variable, which keeps track of 
+		 * which step of the jump (step 0, step 1, step 2, etc.) we are on.
+		 * stops the jump at step 4 (there are only 3 steps). moves char's
+		 * Y position in a different way depending on which step we are one.
+		 * @author adamcogen
+		 *
+		 */
+		class TimerListenerUp implements Runnable{
+
+			@Override
+			public void run() {
+				/*
+				 * since the first two steps of the jump are identical,
+				 * if we just used the jumpStep variable in the switch
+				 * statement, we would need to rewrite the exact same
+				 * code twice for case 0 and case 1. the switchJumpStep
+				 * variable's value is based upon the jumpStep value,
+				 * but it is logically processed so that the same code
+				 * can be used for both jumpStep == 0 and jumpStep == 1.
+				 */
+				int switchJumpStep = 2;
+				if(jumpStep == 0 || jumpStep == 1){
+					switchJumpStep = 0;
+				} else if (jumpStep == 2){
+					switchJumpStep = 1;
+				} else if (jumpStep == 3){
+					switchJumpStep = 2;
+				}
+				switch(switchJumpStep){
+				case 0:
+					if (checkCollision('d', sChar.getX(), sChar.getY() - moveSize)){
+						setCharY(sChar.getY() - 3);
+						if (sChar.getY() <= 0 - edgeWarpOffsetU){
+							edgeWarp('u');
+						}
+					}
+					break;
+				case 1:
+					jumpTimer.stop();
+					setStep(0);
+					checkFall();
+					break;
+				}
+				jumpStep++;
+				//				if((checkClimb() == 3) && sChar.getStep() == 1){
+				//					sChar.incStep();
+				//				}
+			}
+		}
+		jumpTimer = new STickTimer(JUMP_TIMER_FREQUENCY / SGameLoop.TICK_MILLIS, new TimerListenerUp());
+
+		/**
+		 * Timer that during a fall after a certain velocity is reached.
+		 * Handles fast falling and has a higher rate of occurrence so that
+		 * the fall movement appears smoother.
+		 * 
+		 * @author adamcogen
+		 *
+		 */
+		class TimerListenerDownFast implements Runnable{
+			@Override
+			public void run() {
+				/*
+				 * If the player is not on the ground, move down. Try this twice. 
+				 * Repeating this step is better than moving down all at once because 
+				 * it checks the ground below the player more often, preventing the 
+				 * player from falling too far into the ground. 
+				 */
+				int freeFall = 0; //how many more steps down are known to be clear, without checking again
+				for (int i = 0; i < ((int) (fastGravityStart / FAST_GRAVITY_DIVIDER)); i++){
+					//System.out.println((int) (gravityStart / GRAVITY_DIVIDER));
+					if(freeFall > 0 || (canFall() && checkClimb() == 0)){
+						if (freeFall == 0){
+							freeFall = freeFallDistance();
+						}
+						freeFall--;
+						setCharY(sChar.getY() + partialJumpHeight);
+						if (sChar.getY() >= sMap.getFrameHeight() + edgeWarpOffsetD){
+							//if the player is off the edge of the map, edgeWarp down.
+							edgeWarp('d');
+							freeFall = 0;
+						}
+
+						/*
+						 * If the player has not reached terminal velocity, increase the fall speed.
+						 * accelCount and accelAt would the fall to only accelerate once per  certain
+						 * number of timer ticks, but it is not currently implemented.
+						 */
+						if (fastGravityStart <= TERMINAL_VELOCITY * FAST_GRAVITY_DIVIDER && accelCount == accelAt){
+							fastGravityStart += FAST_GRAVITY_ACCELERATION;
+							accelCount = 0;
+						} else {
+							accelCount++;
+						}
+					}
+				}
+				/*
+				 * Perform the same step one more time. If the player was in "water" or on 
+				 * something climbable this whole time, none of these steps were
+				 * performed, but this is addressed next.
+				 */
+				boolean problem = (checkClimb() == 0);
+				//for(int i = 0; i < Integer.MAX_VALUE; i++);
+				if (canFall() && checkClimb() == 0){
+					setCharY(sChar.getY() + partialJumpHeight);
+					if (sChar.getY() >= sMap.getFrameHeight() + edgeWarpOffsetD){
+						edgeWarp('d');
+					}
+				}
+				/*
+				 * if the fastFallTimer gets to the else statement, it just means player isn't freefalling anymore,
+				 * so stop the timer.
+				 */
+				else {
+					fastFallTimer.stop();
+					fastFall = false;
+					setStep(0);
+					resetGravity();
+				}
+			}
+		}
+		fastFallTimer = new STickTimer(FAST_FALL_TIMER_FREQUENCY / SGameLoop.TICK_MILLIS, new TimerListenerDownFast());
+
+		/**
+		 * Timer listener is involved with the 'down' direction of move().
+		 * Handles short jumps, such as jumping while on solid ground.
+		 * Once a fall accelerates to a certain speed, this timer stops
+		 * and the fastFallTimer starts. 
+		 * 
+		 * @author Adam Cogen
+		 *
+		 */
+		class TimerListenerDown implements Runnable{
+
+			@Override
+			public void run() {
+				/*
+				 * If the player is not on the ground, move down. Try this twice. 
+				 * Repeating this step is better than moving down all at once because 
+				 * it checks the ground below the player more often, preventing the 
+				 * player from falling too far into the ground. 
+				 */
+				int freeFall = 0; //how many more steps down are known to be clear, without checking again
+				for (int i = 0; i < ((int) (gravityStart / GRAVITY_DIVIDER)); i++){
+					//System.out.println((int) (gravityStart / GRAVITY_DIVIDER));
+					if((freeFall > 0 || (canFall() && checkClimb() == 0)) && !fastFall){
+						if (freeFall == 0){
+							freeFall = freeFallDistance();
+						}
+						freeFall--;
+						setCharY(sChar.getY() + partialJumpHeight);
+						if (sChar.getY() >= sMap.getFrameHeight() + edgeWarpOffsetD){
+							//if the player is off the edge of the map, edgeWarp down.
+							edgeWarp('d');
+							freeFall = 0;
+						}
+
+						/*
+						 * If the player has not reached terminal velocity, increase the fall speed
+						 * by the gravity acceleration constant.
+						 */
+						if (gravityStart <= TERMINAL_VELOCITY * GRAVITY_DIVIDER){
+							gravityStart += GRAVITY_ACCELERATION;
+						}
+						/*
+						 * if the fall speed is greater than 3 pixels per clock tick, stop the fallTimer
+						 * and start the fastFallTimer.
+						 */
+						if (gravityStart / GRAVITY_DIVIDER >= 3){
+							fastFall = true;
+							fastFallTimer.start();
+							fallTimer.stop();
+						}
+					}
+				}
+				/*
+				 * Perform the same step one more time. If the player was in "water" or on 
+				 * something climbable this whole time, none of these steps were
+				 * performed, but this is addressed next.
+				 */
+				boolean problem = (checkClimb() == 0);
+				//for(int i = 0; i < Integer.MAX_VALUE; i++);
+				if (canFall() && checkClimb() == 0 && !fastFall){
+					setCharY(sChar.getY() + partialJumpHeight);
+					if (sChar.getY() >= sMap.getFrameHeight() + edgeWarpOffsetD){
+						edgeWarp('d');
+					}
+					/*
+					 * If the player is in water, move it down one increment here.
+					 * This way, in water, the player moves down one increment 
+					 * per timer tick, rather than 3 increments if it was falling 
+					 * in air. 
+					 */
+				} else if (canFall() && checkClimb() == 2){
+					setCharY(sChar.getY() + partialJumpHeight);
+					if (sChar.getY() >= sMap.getFrameHeight() + edgeWarpOffsetD){
+						edgeWarp('d');
+					}
+					resetGravity();
+					/*
+					 * If for some reason the fastFall timer has started but the fallTimer
+					 * is still running (this is possible by jumping in rapid succession),
+					 * the fallTimer will still be stopped here, so nothing will go wrong.
+					 */
+				} else if (fastFall){
+					fallTimer.stop();
+					/*
+					 * If none of the previous cases are true, the fall timer should 
+					 * stop, as the player has landed on solid ground (or on something
+					 * climbable).
+					 */
+				} else {
+					fallTimer.stop();
+					setStep(0);
+					resetGravity();
+				}
+			}
+		}
+
+		fallTimer = new STickTimer(FALL_TIMER_FREQUENCY / SGameLoop.TICK_MILLIS, new TimerListenerDown());
+
+		checkFall();
+
+		/**
+		 * 
+		 * MoveTimerListener is the ActionListener for the moveTimer, which calls
+		 * the move(char direction) method, causing the character to move. 
+		 * Different combinations of keys being held down cause different movements.
+		 * Necessary movements will happen whenever the timer ticks, so increasing
+		 * the frequency of timer ticks will make the player move faster. 
+		 * 
+		 * @author Adam Cogen
+		 *
+		 */
+		class MoveTimerListener implements Runnable{
+
+			@Override
+			public void run() {
+				boolean move1 = false; //did the first move happen?
+				boolean move2 = false; //did the second move happen?
+				
+				if((heldKeys & INPUT_LEFT) != 0){ //left cases
+					if((heldKeys & INPUT_UP) != 0){ //left and up
+						move1 = move('u');
+						move2 = move('l');
+						if((move1 && move2 && (checkClimb() == 1 || checkClimb() == 3))){ //if both moves didn't happen, no need to increment step
+							sChar.incStep();	
+						}
+					} else if ((heldKeys & INPUT_DOWN) != 0){ //left and down
+						move1 = move('d');
+						move2 = move('l');
+						if((move1 && move2 && (checkClimb() == 1 || checkClimb() == 2 || checkClimb() == 3))){
+							sChar.incStep();	
+						}
+					}  else { //left only 
+						move('l');
+					}
+				} else if ((heldKeys & INPUT_RIGHT) != 0){ //right cases
+					if((heldKeys & INPUT_UP) != 0){ //right and up
+						move1 = move('u');
+						move2 = move('r');
+						if((move1 && move2 && (checkClimb() == 1 || checkClimb() == 3))){
+							sChar.incStep();	
+						}
+					} else if ((heldKeys & INPUT_DOWN) != 0){ //right and down
+						move1 = move('d');
+						move2 = move('r');
+						if((move1 && move2 && (checkClimb() == 1 ||checkClimb() == 2 || checkClimb() == 3))){
+							sChar.incStep();	
+						}
+					} else { //right only
+						move('r');
+					}
+				} else if ((heldKeys & INPUT_UP) != 0){ //up only
+					move('u');
+				} else if ((heldKeys & INPUT_DOWN) != 0){ //down only
+					/*
+					 * every time a downward movement happens within moveTime, 
+					 * downSlow increments. the move() method for down will not actually
+					 *  be called unless downSlow equals 1, so downward movement only 
+					 *  happens every other timer tick. this is to make downward movement 
+					 *  slower. downSlow is reset to 0 at the same time that the move() 
+					 *  method for down is called (every other timer tick). 
+					 */
+					//System.out.println(downSlow);
+					//if(downSlow == 2){
+						move('d');
+						//downSlow = 0;
+					//}
+					//downSlow++; 
+				}
+				//moveExecuted = true;
+			}
+		}
+		moveTimer = new STickTimer(MOVE_TIMER_FREQUENCY / SGameLoop.TICK_MILLIS, new MoveTimerListener());
+
+	}
+
+	/**
+	 * Advance the simulation by one tick (SGameLoop.TICK_MILLIS of game time).
+	 * 
+	 * Any keys pressed or released since the last tick are acted on first.
+	 * The four timers that make up the game's physics (movement, jumping,
+	 * falling, and fast falling) are all ticked here, in the same order every
+	 * time. All of them are counted down before any of them act, so that a 
+	 * timer that is started by another timer during this tick (like the 
+	 * fallTimer starting the fastFallTimer) waits its full period first.
+	 */
+	public void tick(){
+		processInput();
+		moveTimer.advance();
+		jumpTimer.advance();
+		fallTimer.advance();
+		fastFallTimer.advance();
+		moveTimer.fireIfDue();
+		jumpTimer.fireIfDue();
+		fallTimer.fireIfDue();
+		fastFallTimer.fireIfDue();
+	}
+
+	/**
+	 * Check if the player is on the ground or on something climbable.
+	 * If not, start the fall timer, unless the fastFallTimer is already
+	 * running.
+	 */
+	public void checkFall(){
+		int currentX = sChar.getX();
+		int currentY = sChar.getY();
+		if(!isOnGround(currentX, currentY) && checkClimb() != 1 && checkClimb() != 3){
+			//System.out.println("fall timer started");
+			if(!fastFall){
+				fallTimer.start();
+			}
+		}
+	}
+
+	/**
+	 * Move the player in a specified direction if 
+	 * that movement is possible. This is called
+	 * after an arrow key is pressed. Different 
+	 * directions have different implications 
+	 * (up can start the jumpTimer, start "climbing,"
+	 * or start "swimming," depending on the climbability
+	 * of the current location).
+	 * @param dir A character specifying the direction to move.
+	 * 'l' = left, 'r' = right, 'u' = up, 'd' = down.
+	 * @return true if the move happened, false otherwise
+	 */
+	public boolean move(char dir){
+
+		boolean moved = false; //this will be used to make it so that the legs only move when the player actually moves
+
+		if (dir == 'r'){ //if the right arrow was pressed
+			/*
+			 * each direction's movements are 3 pixels. the player moves as far as it can,
+			 * up to 3 pixels, using a sweep through the map (see slide()). this allows for 
+			 * accurate collision detection, allowing the player to move only 1 or 2 pixels 
+			 * if a wall is 1 or 2 pixels away. this prevents strange looking gaps between 
+			 * the player and the wall.
+			 */
+			moved = slide(dir, 3 * partialMoveSize);
+		} else if (dir == 'l'){ //if the left arrow was pressed
+			//see comment in (dir == 'r') for explanation
+			moved = slide(dir, 3 * partialMoveSize);
+		} else if (dir == 'u'){ //if the up arrow was pressed
+			/*
+			 * up option 1: you are on the ground, in water, or on jumpable climb. 
+			 * there is room to jump without hitting something. start the jump timer,
+			 * which will allow you to jump.
+			 */
+			if(( (isOnGround(sChar.getX(), sChar.getY()) && checkClimb() == 0) || checkClimb() == 2 || checkClimb() == 3) && checkCollision('u', sChar.getX(), sChar.getY() - (3 *partialJumpHeight)) && jumpStep == 3){
+				//System.out.println("ya");
+				moved = true;
+				fallTimer.stop();
+				setCharY(sChar.getY() - (3 * partialJumpHeight));
+				setStep(0);
+				jumpStep = 0;
+				jumpTimer.start();
+			} 
+			/*
+			 * up option 2: you are not necessarily on the ground, but there is room 
+			 * to jump without hitting something, and  you can climb. Move the char
+			 * up by the move size, similar to how you would move left or right,
+			 * without starting the jumpTimer.
+			 */
+			else if((checkClimb() == 1)){
+				moved = slide(dir, 3 * partialJumpHeight); //non-stylized jump
+			} 
+		} else if (dir == 'd'){ //if the down arrow was pressed
+			/*
+			 * If there is room to move down without colliding with something,
+			 * (this happens in the air, in water, or in something climbable)
+			 * then move the character down.
+			 */
+			if (jumpStep == 3){
+				moved = slide(dir, 3 * partialMoveSize);
+			}
+		} else if (dir == 's'){ //if right shift key was pressed
+			//do nothing. this can be implemented with various debug functions if necessary
+		}
+		if (moved){
+			sChar.incStep();
+		}
+		checkClimb();
+
+		//check if the character is on stable ground after moving
+		if (jumpStep == 3){
+			/*
+			 * note: jumpStep will only equal 3 when the jumpTimer is not currently running.
+			 * this prevents the fallTimer from starting in checkFall() while the player is
+			 * still on the way up in a jump. 
+			 */
+			checkFall();
+		}
+		return moved;
+	}
+
+	/**
+	 * Move the player up to distance pixels in a direction, stopping early at 
+	 * the first pixel that would collide with something. This does the same 
+	 * thing as moving one pixel at a time and calling checkCollision() before 
+	 * each step, but each stretch of the move is worked out with one sweep 
+	 * through the map (see SMap.sweep()).
+	 * 
+	 * If the player goes far enough off the edge of the map along the way, it
+	 * is edge-warped at that exact pixel, and the rest of the move continues 
+	 * on the new map, the same as it would pixel by pixel.
+	 * @param dir the direction to move: 'l' left, 'r' right, 'u' up, 'd' down
+	 * @param distance how many pixels to try to move
+	 * @return true if the player moved at all, false otherwise
+	 */
+	private boolean slide(char dir, int distance){
+		boolean moved = false;
+		int remaining = distance;
+		while (remaining > 0){
+			int x = sChar.getX();
+			int y = sChar.getY();
+			/*
+			 * only sweep as far as the edge warp line, so that the warp happens at
+			 * the right pixel. the box being swept is the set of pixels that 
+			 * checkCollision() checks for that side: the left and right sides check
+			 * the rows from the arm line down, and up and down check one row 
+			 * beyond the top and bottom of the player.
+			 */
+			int steps;
+			SSweepResult sweep;
+			int left = x + leftCollisionOffset + 1;
+			int right = x + rightCollisionOffset - 1;
+			if (dir == 'r'){
+				steps = Math.max(1, Math.min(remaining, sMap.getFrameWidth() + edgeWarpOffsetR - x));
+				sweep = sMap.sweep(left, y + upCollisionOffset, right, y + downCollisionOffset, steps, 0);
+			} else if (dir == 'l'){
+				steps = Math.max(1, Math.min(remaining, x + edgeWarpOffsetL));
+				sweep = sMap.sweep(left, y + upCollisionOffset, right, y + downCollisionOffset, -steps, 0);
+			} else if (dir == 'u'){
+				steps = Math.max(1, Math.min(remaining, y + edgeWarpOffsetU));
+				sweep = sMap.sweep(left, y + upCollisionOffset - 1, right, y + downCollisionOffset + 1, 0, -steps);
+			} else {
+				steps = Math.max(1, Math.min(remaining, sMap.getFrameHeight() + edgeWarpOffsetD - y));
+				sweep = sMap.sweep(left, y + upCollisionOffset - 1, right, y + downCollisionOffset + 1, 0, steps);
+			}
+			mapQueries++;
+			remaining -= steps;
+			boolean movedThisStretch = sweep.getDx() != 0 || sweep.getDy() != 0;
+			if (movedThisStretch){
+				moved = true;
+				setCharX(x + sweep.getDx());
+				setCharY(y + sweep.getDy());
+			}
+			//check if the player is off the map and needs to be edge-warped. up and down only warp after actually moving
+			if (dir == 'r' && sChar.getX() >= sMap.getFrameWidth() + edgeWarpOffsetR){
+				edgeWarp(dir);
+			} else if (dir == 'l' && sChar.getX() <= 0 - edgeWarpOffsetL){
+				edgeWarp(dir);
+			} else if (dir == 'u' && movedThisStretch && sChar.getY() <= 0 - edgeWarpOffsetU){
+				edgeWarp(dir);
+			} else if (dir == 'd' && movedThisStretch && sChar.getY() >= sMap.getFrameHeight() + edgeWarpOffsetD){
+				edgeWarp(dir);
+			} else if (sweep.isBlocked()){
+				break; //the player is against a wall, so the rest of the move can't happen
+			}
+		}
+		return moved;
+	}
+
+	/**
+	 * Check whether the player can fall one more pixel without landing on 
+	 * something solid. This gives the same answer as !isOnGround() at the
+	 * player's position, but it looks ahead with one sweep through the map
+	 * and remembers where the ground is, so that a fall of many pixels in one
+	 * tick only needs one query instead of one per pixel. It looks again if 
+	 * the player moves sideways, moves up, changes maps, or falls past the
+	 * distance that was checked.
+	 * @return true if the player is not on the ground
+	 */
+	private boolean canFall(){
+		int x = sChar.getX();
+		int y = sChar.getY();
+		if (fallCheckMapChanges != mapChanges || x != fallCheckX || y < fallCheckY || (!fallGroundFound && y >= fallGroundY)){
+			//isOnGround() checks the row just below the player's feet, the same row as y
+			int ground = sMap.getSolidDistance(x + leftCollisionOffset + 1, x + rightCollisionOffset - 1, y + downCollisionOffset + 1, FALL_CHECK_DISTANCE);
+			mapQueries++;
+			fallCheckMapChanges = mapChanges;
+			fallCheckX = x;
+			fallCheckY = y;
+			fallGroundY = y + ground;
+			fallGroundFound = ground <= FALL_CHECK_DISTANCE;
+		}
+		return y < fallGroundY;
+	}
+
+	/**
+	 * Work out how many steps (of partialJumpHeight) the player can fall 
+	 * from where it is before it would land on the ground or touch anything
+	 * climbable. Each of those steps is certain to pass the canFall() and 
+	 * checkClimb() == 0 checks in the fall timers, so the timers only have to
+	 * call this once per fall instead of checking again before every step.
+	 * This must only be called when the player can fall at least one step.
+	 * 
+	 * As the player falls, checkClimb()'s box slides down, so the only new
+	 * pixels it covers are on its bottom line. The fall is clear until that
+	 * line reaches something climbable.
+	 * @return int: how many steps down are clear, starting with the next one
+	 */
+	private int freeFallDistance(){
+		int x = sChar.getX();
+		int y = sChar.getY();
+		int left = x + leftCollisionOffset;
+		int right = x + rightCollisionOffset;
+		int ground = sMap.getSolidDistance(left + 1, right - 1, y + downCollisionOffset + 1, FALL_CHECK_DISTANCE);
+		int climb = sMap.getClimbDistance(left, right, y + downCollisionOffset, FALL_CHECK_DISTANCE);
+		mapQueries += 2;
+		return Math.min(ground, climb) / partialJumpHeight;
+	}
+
+	/**
+	 * Set which keys are being held down. The simulation does not act on
+	 * this straight away. At the start of the next tick, it compares the 
+	 * input with what it was at the start of the last tick, to find which
+	 * keys were just pressed and which were just released (see 
+	 * processInput()). Holding a key down for many ticks, or setting the
+	 * same input again, does nothing more.
+	 * @param keys the keys being held down, as INPUT_ bits
+	 */
+	public void setInput(int keys){
+		setInput(keys, 0);
+	}
+
+	/**
+	 * Set which keys are being held down, and which keys were pressed since
+	 * the last tick. A key that was pressed and released again before the
+	 * next tick is not held down, so it only shows up in pressedKeys, but
+	 * the player still makes the initial move for it (see processInput()).
+	 * @param keys the keys being held down, as INPUT_ bits
+	 * @param pressedKeys the keys pressed since the last tick, even if they have been released again, as INPUT_ bits
+	 */
+	public void setInput(int keys, int pressedKeys){
+		input = keys;
+		pressedInput |= pressedKeys;
+	}
+
+	/**
+	 * Return which keys are being held down, as last set with setInput().
+	 * @return int: the keys being held down, as INPUT_ bits
+	 */
+	public int getInput(){
+		return input;
+	}
+
+	/**
+	 * Act on the keys that were pressed or released since the last tick.
+	 * Called at the start of every tick. The moveTimer is started or stopped
+	 * based on which arrow keys were pressed or released. Also note that 
+	 * when an arrow key is pressed, this method will call the move(char 
+	 * direction) method itself once (as opposed to leaving all calls to 
+	 * the moveTimer). This is because otherwise the first movement will 
+	 * only happen if it is held down long enough for a timer tick to happen.
+	 * Since a key held down only counts as pressed on the first tick, this
+	 * initial move happens once for each press, no matter how many times 
+	 * the keyboard repeats the key. A key that was pressed and released
+	 * again between two ticks makes its initial move too, but is not moved
+	 * with after that.
+	 */
+	private void processInput(){
+		int pressed = pressedInput | (input & ~previousInput);
+		previousInput = input;
+		pressedInput = 0;
+
+		//releases: stop moving with any arrow key that is no longer held down
+		if ((heldKeys & ~input) != 0){
+			heldKeys &= input;
+			if (heldKeys == 0){
+				moveTimer.stop();
+				moving = false;
+			}
+		}
+
+		/*
+		 * presses: start moving with any arrow key that is held down but not
+		 * being moved with yet, unless the opposite key is being moved with.
+		 * this is usually a key that was just pressed, but it can also be a
+		 * key that was pressed while the opposite key was held, once that 
+		 * key has been released.
+		 */
+		int waiting = input & ~heldKeys;
+		int tapped = pressed & ~waiting; //pressed since the last tick, but released again (or released and pressed again while being moved with)
+		startMoving(waiting, tapped, INPUT_LEFT, INPUT_RIGHT, 'l');
+		startMoving(waiting, tapped, INPUT_RIGHT, INPUT_LEFT, 'r');
+		startMoving(waiting, tapped, INPUT_UP, INPUT_DOWN, 'u');
+		startMoving(waiting, tapped, INPUT_DOWN, INPUT_UP, 'd');
+
+		if ((pressed & INPUT_SHIFT) != 0){ //shift key was pressed
+			move('s'); //this can by implemented for various debug functions if needed
+		}
+	}
+
+	/**
+	 * Start moving with an arrow key, if it is waiting to be moved with and
+	 * the opposite key is not being moved with. The initial move in that
+	 * direction happens straight away, and the moveTimer is started. A key
+	 * that was tapped only makes the initial move.
+	 * @param waiting the keys that are held down but not being moved with yet
+	 * @param tapped the keys that were pressed since the last tick, but are not waiting
+	 * @param key the INPUT_ bit of the arrow key
+	 * @param opposite the INPUT_ bit of the opposite arrow key
+	 * @param dir the direction to move, as passed to move()
+	 */
+	private void startMoving(int waiting, int tapped, int key, int opposite, char dir){
+		if ((heldKeys & opposite) != 0){
+			return;
+		}
+		if ((waiting & key) != 0){
+			move(dir); //the initial movement
+			heldKeys |= key;
+			if(moving == false){
+				moveTimer.start();
+				moving = true;
+			}
+		} else if ((tapped & key) != 0){
+			move(dir); //the initial movement, for a press that did not last until this tick
+		}
+	}
+
+	/**
+	 * This changes the current map to a specified map,
+	 * and initializes all necessary classes and fields.
+	 * This is called for in-map-warps, edge-warps,
+	 * and within the constructor (in this case, 
+	 * the initial game map is the parameter). 
+	 * @param newMap the map to change to
+	 */
+	public void changeMap(int newMap){
+		mapChanges++;
+		if (mapListener != null && sMap != null){
+			mapListener.mapChanging(sMap.getMapNumber(), newMap);
+		}
+		map = newMap;
+		sMap = mapCache.get(newMap);
+		if (mapListener != null){
+			mapListener.mapChanged(sMap);
+		}
+	}
+
+	/**
+	 * perform an edge warp in the specified direction.
+	 * @param direction char representing the direction 
+	 * 		  to perform the edge warp in. 
+	 * 		  'l' is left, 'r' is right, 'u' is up, 'd' 
+	 * 		  is down.
+	 */
+	public void edgeWarp(char direction){
+		if (direction == 'l'){ //left
+			changeMap(sMap.getEdgeWarpLeft());
+			setCharX(sMap.getFrameWidth() + edgeWarpOffsetR);
+		} else if (direction == 'r'){ //right
+			changeMap(sMap.getEdgeWarpRight());
+			setCharX(0 - edgeWarpOffsetL);
+		} else if (direction == 'u'){ //up
+			changeMap(sMap.getEdgeWarpUp());
+			setCharY(sMap.getFrameHeight() + edgeWarpOffsetD);
+		} else if (direction == 'd'){ //down
+			changeMap(sMap.getEdgeWarpDown());
+			setCharY(0 - edgeWarpOffsetU);
+		}
+		if(edgeWarpResetsGravity){
+			resetGravity();
+		}
+		checkFall();
+	}
+
+	/**
+	 * checks the climbability of the current position by calling
+	 * SMap.getClimbRegion() on the player's climbability box. returns an int.
+	 * Also handles calls to normWarp(), since climbability and in-map-warp
+	 * numbers are stored in the same value in map files. 
+	 * 
+	 * The region is only checked once for each place the player stands. 
+	 * Calling this again before the player moves or changes maps reuses
+	 * the answer, so it can be called as often as needed within a tick.
+	 * 
+	 * @return the climbability of current spot or the normWarp value at that spot.
+	 *		   0 = not climbable. 1 = climbable. 2 = watery. 
+	 * 		   value greater than or equal to 10 represents
+	 * 		   an in-map-warp, with the number (climbability value - 10).
+	 * 
+	 * 
+	 * in-map-warp takes first priority (the highest warp number, if there
+	 * are more than one), then jump climbable, then ladder climbable, 
+	 * then water, then cantclimb.
+	 * 
+	 */
+	public int checkClimb(){
+		/*
+		 * 
+		 * This works by checking the climbability of a box around the
+		 * player. If anything in the box is climbable, then the player
+		 * can climb. Different types of climbability take priority over 
+		 * others (for instance if you can climb, there is no need to sink 
+		 * in water). Look at the main comment for this method to see 
+		 * priority order.
+		 * 
+		 * The top of the climbable range on the character is slightly above its
+		 * arms (because it has short arms, and you can't climb something with
+		 * your head).
+		 * 
+		 * note: anywhere that -11 apppears near a sChar.getY() value, it is used 
+		 * to put the top bound of climb sensing at the arm height of the player
+		 * 
+		 * To see the climbability box, go to the SGamePanel class and set the 
+		 * boolean field showHitBox to true before starting the game. The red 
+		 * dot in the middle of the character is one pixel below the top of
+		 * the climbability range.
+		 * 
+		 */
+		int x = sChar.getX();
+		int y = sChar.getY();
+		if (climbCheckMapChanges != mapChanges || x != climbCheckX || y != climbCheckY){
+			SClimbRegion region = sMap.getClimbRegion(x + leftCollisionOffset, y + -11, x + rightCollisionOffset, y + downCollisionOffset); //upCollisionOffset
+			mapQueries++;
+			climbCheckMapChanges = mapChanges;
+			climbCheckX = x;
+			climbCheckY = y;
+			climbCheckPriority = region.getPriority();
+		}
+		int priority = climbCheckPriority;
+
+		if (priority >= 10){
+			normWarp(priority - 10);
+		}
+
+		return priority;
+	}
+
+
+	/**
+	 * change the player's x position.
+	 * @param newX the new x position for the player, as an int
+	 */
+	public void setCharX(int newX){
+		sChar.setX(newX);
+	}
+
+	/**
+	 * change the player's y position.
+	 * @param newY the new y position for the player, as an int
+	 */
+	public void setCharY(int newY){
+		sChar.setY(newY);
+	}
+
+	/**
+	 * change the player's step variable.
+	 * @param newStep the new step value, as an int
+	 */
+	public void setStep(int newStep){
+		sChar.setStep(newStep);
+	}
+
+	/**
+	 * Perform an in-map warp, or "normal warp", which can be placed
+	 * anywhere in the map.
+	 * Normal warps specify which map they lead to, and at what x and y 
+	 * positions. This method reads those values one at a time from
+	 * warpList[][] within the SMap class, then makes appropriate changes
+	 * to the game to warp the player to the specified destination.
+	 * @param warpNumber
+	 */
+	public void normWarp(int warpNumber){
+		int newMap = sMap.getNormWarpValue(warpNumber, 0);
+		int newX = sMap.getNormWarpValue(warpNumber, 1);
+		int newY = sMap.getNormWarpValue(warpNumber, 2);
+		changeMap(newMap);
+		setCharX(newX);
+		setCharY(newY);
+		if(normWarpResetsGravity){
+			resetGravity();
+		}
+		checkFall();
+	}
+
+	/**
+	 * this method works by checking collision along a straight 
+	 * line on the specified side, all at once (see SMap.getAreaCollision()).
+	 * All of the lines form a line around the character. To see the collision box, 
+	 * go to the SGamePanel class and set the boolean field 
+	 * showHitBox to true before starting the game.
+	 * If the player moves left, it is necessary to check 
+	 * left collision, etc. 
+	 * @param side: char representing which side to check ('l' left, 'r' right, 'u' up, 'd' down)
+	 * @param x: the x value to check
+	 * @param y: the y value to check
+	 * @return boolean: true if the player can go there, false if they can't
+	 */
+	public boolean checkCollision(char side, int x, int y){
+		mapQueries++;
+		if(side == 'l'){
+			return sMap.getAreaCollision(x + leftCollisionOffset + 1, y + upCollisionOffset, x + leftCollisionOffset + 1, y + downCollisionOffset);
+		} else if (side == 'r'){
+			return sMap.getAreaCollision(x + rightCollisionOffset - 1, y + upCollisionOffset, x + rightCollisionOffset - 1, y + downCollisionOffset);
+		} else if (side == 'u'){
+			return sMap.getAreaCollision(x + leftCollisionOffset + 1, y + upCollisionOffset - 1, x + rightCollisionOffset - 1, y + upCollisionOffset - 1);
+		} else if (side == 'd'){
+			return sMap.getAreaCollision(x + leftCollisionOffset + 1, y + downCollisionOffset + 1, x + rightCollisionOffset - 1, y + downCollisionOffset + 1);
+		}
+		return true;
+	}
+
+	/**
+	 * this is here to improve readability of the code, so that it is easy to see when 
+	 * we are checking whether the character is on the ground or not. Calling isOnGround
+	 * is a lot easier to remember and read than a call to and negation of checkCollision.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean isOnGround(int x, int y){
+		return !checkCollision('d', x, y);
+	}
+
+	/**
+	 * When the player hits the ground, something climbable, or water, this is called.
+	 * Resets necessary values so that fall acceleration, etc. is reset for the next 
+	 * fall.
+	 */
+	public void resetGravity(){
+		gravityStart = GRAVITY_INITIAL_SPEED;
+		fastGravityStart = FAST_GRAVITY_INITIAL_SPEED;
+		accelCount = 0;
+	}
+
+	//	/**
+	//	 * This is meant to find the current position of a certain side of the player,
+	//	 * taking necessary calibration into account. It is currently not used, but may 
+	//	 * be useful later.
+	//	 * @param edge: char, which edge to check. 'l' left, 'r' right, 'u' up, 'd' down.
+	//	 * @return int: the position of that side (x position for left and right, y position for top and bottom)
+	//	 */
+	//	public int getCharPosition(char edge){
+	//		int position = 0;
+	//		if (edge == 'l'){
+	//			position = sChar.getX() + leftCollisionOffset;
+	//		} if (edge == 'r'){
+	//			position = sChar.getX() + rightCollisionOffset;
+	//		} if (edge == 'u'){
+	//			position = sChar.getY() + upCollisionOffset;
+	//		} if (edge == 'd'){
+	//			position = sChar.getY() + downCollisionOffset;
+	//		}
+	//		return position;
+	//	}
+
+	/**
+	 * Return the player.
+	 * @return SChar: the player
+	 */
+	public SChar getChar(){
+		return sChar;
+	}
+
+	/**
+	 * Return the current map.
+	 * @return SMap: the current map
+	 */
+	public SMap getMap(){
+		return sMap;
+	}
+
+	/**
+	 * Return the number of the current map.
+	 * @return int: the current map number
+	 */
+	public int getMapNumber(){
+		return map;
+	}
+
+	/**
+	 * Return how many collision and climbability queries the simulation 
+	 * has made on its maps so far. Queries that were answered from what
+	 * canFall() and checkClimb() remembered are not counted.
+	 * @return long: the number of map queries
+	 */
+	public long getMapQueries(){
+		return mapQueries;
+	}
+
+}
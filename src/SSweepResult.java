@@ -0,0 +1,72 @@
+/**
+ * The result of sweeping a box through a map with SMap.sweep(): how far 
+ * the box got before it hit something solid, and which way the surface 
+ * it hit faces.
+ * 
+ * @author Adam Cogen
+ *
+ */
+public class SSweepResult {
+	private int dx; //how far the box moved along x
+	private int dy; //how far the box moved along y
+	private int normalX; //-1 if the box hit something while moving right, 1 if it hit something while moving left, otherwise 0
+	private int normalY; //-1 if the box hit something while moving down, 1 if it hit something while moving up, otherwise 0
+
+	/**
+	 * Create a sweep result.
+	 * @param dx how far the box moved along x
+	 * @param dy how far the box moved along y
+	 * @param normalX the x part of the contact normal: -1, 0 or 1
+	 * @param normalY the y part of the contact normal: -1, 0 or 1
+	 */
+	public SSweepResult(int dx, int dy, int normalX, int normalY){
+		this.dx = dx;
+		this.dy = dy;
+		this.normalX = normalX;
+		this.normalY = normalY;
+	}
+
+	/**
+	 * Return how far the box moved along x. This has the same sign as the 
+	 * requested movement, and is never further.
+	 * @return int: the x distance moved
+	 */
+	public int getDx(){
+		return dx;
+	}
+
+	/**
+	 * Return how far the box moved along y. This has the same sign as the 
+	 * requested movement, and is never further.
+	 * @return int: the y distance moved
+	 */
+	public int getDy(){
+		return dy;
+	}
+
+	/**
+	 * Return the x part of the normal of the surface the box hit: 
+	 * -1 for a wall to the right, 1 for a wall to the left, 0 if it did not hit one.
+	 * @return int: the x part of the contact normal
+	 */
+	public int getNormalX(){
+		return normalX;
+	}
+
+	/**
+	 * Return the y part of the normal of the surface the box hit: 
+	 * -1 for a floor below, 1 for a ceiling above, 0 if it did not hit one.
+	 * @return int: the y part of the contact normal
+	 */
+	public int getNormalY(){
+		return normalY;
+	}
+
+	/**
+	 * Return whether the box hit something solid.
+	 * @return true if the box was stopped before it moved as far as it was asked to
+	 */
+	public boolean isBlocked(){
+		return normalX != 0 || normalY != 0;
+	}
+}
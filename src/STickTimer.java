@@ -0,0 +1,87 @@
+/**
+ * A timer that counts game loop ticks instead of milliseconds.
+ * 
+ * It works like a javax.swing.Timer that has been folded into the game
+ * loop: it can be started and stopped, and while it is running, its 
+ * action happens once every period ticks. Starting a timer that is 
+ * already running does nothing, and the first action after a start 
+ * happens one full period later, the same as a Swing Timer. Since the
+ * game loop ticks every timer itself, in a fixed order, timers can never 
+ * fire out of order or bunch up the way Swing Timers on a busy event 
+ * thread can.
+ * 
+ * @author Adam Cogen
+ *
+ */
+public class STickTimer {
+	private int period; //how many ticks there are between actions
+	private Runnable action; //what to do every period ticks
+	private int countdown; //how many more ticks until the next action
+	private boolean running; //is the timer running?
+	private boolean due; //did the countdown finish on the current tick?
+
+	/**
+	 * Create a stopped timer.
+	 * @param periodTicks how many ticks there are between actions. must be at least 1.
+	 * @param action what to do every periodTicks ticks
+	 */
+	public STickTimer(int periodTicks, Runnable action){
+		if (periodTicks < 1){
+			throw new IllegalArgumentException("timer period must be at least 1 tick, not " + periodTicks);
+		}
+		period = periodTicks;
+		this.action = action;
+	}
+
+	/**
+	 * Start the timer, if it is not already running.
+	 */
+	public void start(){
+		if (!running){
+			running = true;
+			countdown = period;
+			due = false;
+		}
+	}
+
+	/**
+	 * Stop the timer.
+	 */
+	public void stop(){
+		running = false;
+		due = false;
+	}
+
+	/**
+	 * Return whether the timer is running.
+	 * @return true if the timer is running
+	 */
+	public boolean isRunning(){
+		return running;
+	}
+
+	/**
+	 * Count down one tick. This is the first half of a tick: every timer is 
+	 * advanced before any of them fire, so that a timer that gets started by 
+	 * another timer's action during a tick waits a full period before it fires.
+	 */
+	public void advance(){
+		if (running && --countdown <= 0){
+			countdown = period;
+			due = true;
+		}
+	}
+
+	/**
+	 * Do the timer's action, if its countdown finished on this tick and it has 
+	 * not been stopped since. This is the second half of a tick.
+	 */
+	public void fireIfDue(){
+		if (due){
+			due = false;
+			if (running){
+				action.run();
+			}
+		}
+	}
+}